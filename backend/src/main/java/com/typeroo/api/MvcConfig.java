@@ -1,12 +1,14 @@
 package com.typeroo.api;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.lang.NonNull;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class MvcConfig implements WebMvcConfigurer {
@@ -15,7 +17,9 @@ public class MvcConfig implements WebMvcConfigurer {
         Path uploadDir = Paths.get("./uploads").toAbsolutePath();
         String location = uploadDir.toUri().toString();
 
+        // Legacy avatar URLs; uploaded files were never overwritten in place
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations(location + (location.endsWith("/") ? "" : "/"));
+                .addResourceLocations(location + (location.endsWith("/") ? "" : "/"))
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
     }
 }
@@ -0,0 +1,21 @@
+package com.typeroo.api.controllers;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.typeroo.api.payload.response.MessageResponse;
+import com.typeroo.api.security.HashingSaturatedException;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(HashingSaturatedException.class)
+    public ResponseEntity<?> handleHashingSaturated(HashingSaturatedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new MessageResponse("Error: Server is busy, please try again shortly"));
+    }
+}
@@ -3,17 +3,19 @@ package com.typeroo.api.controllers;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -27,65 +29,91 @@ import com.typeroo.api.payload.request.SignupRequest;
 import com.typeroo.api.payload.response.JwtResponse;
 import com.typeroo.api.payload.response.MessageResponse;
 import com.typeroo.api.repository.UserRepository;
+import com.typeroo.api.security.PasswordHashingService;
 import com.typeroo.api.security.jwt.JwtUtils;
 import com.typeroo.api.security.service.UserDetailsImpl;
+import com.typeroo.api.services.ProfileChangedEvent;
+import com.typeroo.api.services.UsernameSearchIndex;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
     @Autowired
-    AuthenticationManager authenticationManager;
+    UserDetailsService userDetailsService;
 
     @Autowired
     UserRepository userRepository;
 
     @Autowired
-    PasswordEncoder encoder;
+    PasswordHashingService passwordHashingService;
 
     @Autowired
     JwtUtils jwtUtils;
 
-    @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = jwtUtils.generateJwtToken(authentication);
+    @Autowired
+    UsernameSearchIndex usernameSearchIndex;
 
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        List<String> roles = userDetails.getAuthorities().stream()
-                .map(item -> item.getAuthority())
-                .collect(Collectors.toList());
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
 
-        return ResponseEntity.ok(new JwtResponse(jwt,
-                userDetails.getId(),
-                userDetails.getUsername(),
-                userDetails.getEmail(),
-                userDetails.getThemePreference(),
-                roles));
+    @PostMapping("/signin")
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+        UserDetailsImpl found;
+        try {
+            found = (UserDetailsImpl) userDetailsService.loadUserByUsername(loginRequest.getUsername());
+        } catch (UsernameNotFoundException e) {
+            found = null;
+        }
+        UserDetailsImpl userDetails = found;
+
+        // Only the BCrypt check runs on the hashing pool; the token is issued back on the request executor
+        return passwordHashingService.matches(loginRequest.getPassword(),
+                userDetails != null ? userDetails.getPassword() : null)
+                .thenApplyAsync(valid -> {
+                    if (!valid)
+                        throw new BadCredentialsException("Bad credentials");
+
+                    Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null,
+                            userDetails.getAuthorities());
+                    String jwt = jwtUtils.generateJwtToken(authentication);
+
+                    List<String> roles = userDetails.getAuthorities().stream()
+                            .map(item -> item.getAuthority())
+                            .collect(Collectors.toList());
+
+                    return ResponseEntity.ok(new JwtResponse(jwt,
+                            userDetails.getId(),
+                            userDetails.getUsername(),
+                            userDetails.getEmail(),
+                            userDetails.getThemePreference(),
+                            roles));
+                }, passwordHashingService.continuations());
     }
 
     @PostMapping("/signup")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         if (userRepository.existsByUsername(signUpRequest.getUsername())) {
-            return ResponseEntity
+            return CompletableFuture.completedFuture(ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Username is already taken!"));
+                    .body(new MessageResponse("Error: Username is already taken!")));
         }
 
         if (userRepository.existsByEmail(signUpRequest.getEmail())) {
-            return ResponseEntity
+            return CompletableFuture.completedFuture(ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Email is already in use!"));
+                    .body(new MessageResponse("Error: Email is already in use!")));
         }
 
+        return passwordHashingService.encode(signUpRequest.getPassword())
+                .thenApplyAsync(hash -> createUser(signUpRequest, hash), passwordHashingService.continuations());
+    }
+
+    private ResponseEntity<?> createUser(SignupRequest signUpRequest, String passwordHash) {
         // Create new user's account
         User user = new User(signUpRequest.getUsername(),
                 signUpRequest.getEmail(),
-                encoder.encode(signUpRequest.getPassword()));
+                passwordHash);
 
         Set<String> strRoles = signUpRequest.getRoles();
         Set<ERole> roles = new HashSet<>();
@@ -106,6 +134,9 @@ public class AuthController {
 
         user.setRoles(roles);
         userRepository.save(user);
+        usernameSearchIndex.put(user);
+        // Drops a miss cached on this node by a lookup racing the signup
+        eventPublisher.publishEvent(new ProfileChangedEvent(user.getUsername()));
 
         return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
     }
@@ -0,0 +1,246 @@
+package com.typeroo.api.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.typeroo.api.storage.AvatarThumbnailService;
+import com.typeroo.api.storage.BlobInfo;
+import com.typeroo.api.storage.BlobStore;
+import com.typeroo.api.storage.HotBlobCache;
+import com.typeroo.api.storage.ImageType;
+
+/**
+ * Serves avatar blobs. Keys are content digests, so a response for a given
+ * key never changes: it is cached as immutable, validated by a strong ETag
+ * derived from the key, and large files are handed to Tomcat's sendfile
+ * instead of being copied through the heap.
+ */
+@RestController
+@RequestMapping("/avatars")
+public class AvatarController {
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}\\.(png|jpg|gif|webp)");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    // Tomcat request attributes, see org.apache.catalina.Globals
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    @Autowired
+    BlobStore blobStore;
+
+    @Autowired
+    HotBlobCache hotBlobCache;
+
+    // Used while a requested thumbnail is not rendered yet and the original stands in for it
+    @Value("${app.avatars.fallbackMaxAgeSeconds:60}")
+    private int fallbackMaxAgeSeconds;
+
+    /**
+     * Serves the smallest rendered variant at least {@code size} pixels wide,
+     * or the original while variants are still being rendered (or were never
+     * rendered, e.g. for WebP).
+     */
+    @GetMapping("/{key}")
+    public void getAvatar(@PathVariable String key, @RequestParam(required = false) Integer size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!KEY.matcher(key).matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String servedKey = key;
+        boolean fallback = false;
+        if (size != null) {
+            for (int variantSize : AvatarThumbnailService.SIZES) {
+                if (variantSize >= size) {
+                    String variantKey = AvatarThumbnailService.variantKey(key, variantSize);
+                    if (blobStore.exists(variantKey))
+                        servedKey = variantKey;
+                    else
+                        fallback = true;
+                    break;
+                }
+            }
+        }
+
+        HotBlobCache.Entry cached = hotBlobCache.get(servedKey);
+        BlobInfo info = cached != null ? cached.getInfo() : blobStore.stat(servedKey);
+        if (info == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = info.getSize();
+
+        String etag = "\"" + servedKey + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                fallback ? "public, max-age=" + fallbackMaxAgeSeconds : IMMUTABLE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, info.getLastModified());
+
+        if (notModified(request, etag, info)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(ImageType.fromKey(servedKey).getContentType());
+
+        long start = 0;
+        long end = length;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && rangeApplies(request, etag, info)) {
+            long[] range = parseRange(rangeHeader, length);
+            if (range == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (range.length == 2) {
+                start = range[0];
+                end = range[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+        }
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod()))
+            return;
+
+        byte[] content = cached != null ? cached.getContent() : null;
+        if (content == null && hotBlobCache.accepts(length)) {
+            try (InputStream in = blobStore.open(servedKey)) {
+                content = in.readAllBytes();
+            }
+            hotBlobCache.put(servedKey, content, info.getLastModified());
+        }
+        if (content != null) {
+            response.getOutputStream().write(content, (int) start, (int) (end - start));
+            return;
+        }
+
+        Path file = blobStore.localPath(servedKey);
+        if (file == null) {
+            try (InputStream in = blobStore.open(servedKey)) {
+                in.skipNBytes(start);
+                copy(in, response.getOutputStream(), end - start);
+            }
+        } else if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat writes the file region to the socket itself once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = start;
+                while (position < end) {
+                    position += channel.transferTo(position, end - position, out);
+                }
+            }
+        }
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, BlobInfo info) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/"))
+                    tag = tag.substring(2);
+                if (tag.equals("*") || tag.equals(etag))
+                    return true;
+            }
+            return false;
+        }
+        return ifModifiedSince(request) >= info.getLastModified() / 1000 * 1000;
+    }
+
+    private static long ifModifiedSince(HttpServletRequest request) {
+        try {
+            return request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    // A range is only honoured if the client's copy is still the same representation
+    private static boolean rangeApplies(HttpServletRequest request, String etag, BlobInfo info) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null)
+            return true;
+        if (ifRange.startsWith("\""))
+            return ifRange.equals(etag);
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == info.getLastModified() / 1000 * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses a single byte range into {@code [start, endExclusive]}. Malformed
+     * or multi-range headers yield an empty array (serve the whole blob), an
+     * unsatisfiable range yields {@code null}.
+     */
+    private static long[] parseRange(String header, long length) {
+        Matcher matcher = RANGE.matcher(header.trim());
+        if (!matcher.matches())
+            return new long[0];
+        String first = matcher.group(1);
+        String last = matcher.group(2);
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty())
+                    return new long[0];
+                long suffix = Long.parseLong(last);
+                if (suffix == 0 || length == 0)
+                    return null;
+                return new long[] { Math.max(0, length - suffix), length };
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+            if (end < start)
+                return new long[0];
+            if (start >= length)
+                return null;
+            return new long[] { start, Math.min(end, length - 1) + 1 };
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, long count) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (count > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, count));
+            if (read < 0)
+                break;
+            out.write(buffer, 0, read);
+            count -= read;
+        }
+    }
+}
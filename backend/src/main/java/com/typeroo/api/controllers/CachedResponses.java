@@ -0,0 +1,28 @@
+package com.typeroo.api.controllers;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import com.typeroo.api.services.ETaggedValue;
+
+/**
+ * Turns cached values into responses clients revalidate on every use, with a
+ * bodiless 304 when their copy is still current.
+ */
+final class CachedResponses {
+    private CachedResponses() {
+    }
+
+    static ResponseEntity<?> of(ETaggedValue<?> cached, WebRequest request) {
+        if (cached == null)
+            return ResponseEntity.notFound().build();
+        if (request.checkNotModified(cached.getETag()))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.getETag()).build();
+        return ResponseEntity.ok()
+                .eTag(cached.getETag())
+                .cacheControl(CacheControl.noCache())
+                .body(cached.getValue());
+    }
+}
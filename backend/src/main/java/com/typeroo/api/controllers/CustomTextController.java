@@ -1,8 +1,13 @@
 package com.typeroo.api.controllers;
 
 import java.util.List;
+import java.util.Locale;
+
+import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -13,13 +18,23 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.typeroo.api.models.CustomText;
 import com.typeroo.api.payload.request.CustomTextRequest;
+import com.typeroo.api.payload.response.CustomTextContentResponse;
+import com.typeroo.api.payload.response.CustomTextSummary;
 import com.typeroo.api.payload.response.MessageResponse;
 import com.typeroo.api.repository.CustomTextRepository;
 import com.typeroo.api.security.service.UserDetailsImpl;
+import com.typeroo.api.services.CatalogCursor;
+import com.typeroo.api.services.CustomTextCatalog;
+import com.typeroo.api.services.CustomTextService;
+import com.typeroo.api.services.StaleCatalogCursorException;
+import com.typeroo.api.services.TextDifficulty;
+import com.typeroo.api.services.TextLength;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -28,19 +43,73 @@ public class CustomTextController {
     @Autowired
     CustomTextRepository customTextRepository;
 
+    @Autowired
+    CustomTextService customTextService;
+
+    @Autowired
+    CustomTextCatalog customTextCatalog;
+
     @GetMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> getMyCustomTexts(@AuthenticationPrincipal UserDetailsImpl userDetails) {
-        List<CustomText> texts = customTextRepository.findByUserId(userDetails.getId());
+        List<CustomTextSummary> texts = customTextService.getSummaries(userDetails.getId());
         return ResponseEntity.ok(texts);
     }
 
+    @GetMapping("/catalog")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> searchCatalog(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String length,
+            @RequestParam(required = false) String difficulty,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        TextLength lengthFacet;
+        TextDifficulty difficultyFacet;
+        CatalogCursor after;
+        try {
+            lengthFacet = length == null ? null : TextLength.valueOf(length.toUpperCase(Locale.ROOT));
+            difficultyFacet = difficulty == null ? null : TextDifficulty.valueOf(difficulty.toUpperCase(Locale.ROOT));
+            after = cursor == null || cursor.isEmpty() ? null : CatalogCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Invalid catalog filter or cursor"));
+        }
+
+        try {
+            return ResponseEntity.ok(customTextCatalog.search(q, lengthFacet, difficultyFacet, after,
+                    Math.max(1, Math.min(size, 100))));
+        } catch (StaleCatalogCursorException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: The catalog changed, start the search again"));
+        }
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getCustomText(@AuthenticationPrincipal UserDetailsImpl userDetails,
+            @PathVariable String id, WebRequest request) {
+        var textOpt = customTextRepository.findById(id);
+        if (textOpt.isEmpty() || !(textOpt.get().isPublic() || textOpt.get().getUserId().equals(userDetails.getId())))
+            return ResponseEntity.notFound().build();
+
+        CustomText text = textOpt.get();
+        String eTag = "\"" + text.getContentHash() + "\"";
+        if (text.getContentHash() != null && request.checkNotModified(eTag))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+
+        // Inflated only once the client's copy is known to be stale
+        CustomTextContentResponse body = new CustomTextContentResponse(text.getId(), customTextService.getContent(text));
+        if (text.getContentHash() == null)
+            return ResponseEntity.ok(body);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache().cachePrivate()).body(body);
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> addCustomText(@AuthenticationPrincipal UserDetailsImpl userDetails,
-            @RequestBody CustomTextRequest request) {
-        CustomText text = new CustomText(userDetails.getId(), request.getContent(), request.isPublic());
-        customTextRepository.save(text);
+            @Valid @RequestBody CustomTextRequest request) {
+        CustomText text = customTextService.create(userDetails.getId(), request.getContent(), request.isPublic());
+        customTextCatalog.put(text, request.getContent());
         return ResponseEntity.ok(new MessageResponse("Custom text added successfully"));
     }
 
@@ -52,6 +121,7 @@ public class CustomTextController {
         var textOpt = customTextRepository.findById(id);
         if (textOpt.isPresent() && textOpt.get().getUserId().equals(userDetails.getId())) {
             customTextRepository.deleteById(id);
+            customTextCatalog.remove(id);
             return ResponseEntity.ok(new MessageResponse("Deleted successfully"));
         }
         return ResponseEntity.badRequest().body(new MessageResponse("Error: Cannot delete text"));
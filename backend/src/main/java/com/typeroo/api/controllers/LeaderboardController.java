@@ -0,0 +1,117 @@
+package com.typeroo.api.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.typeroo.api.payload.response.LeaderboardEntryResponse;
+import com.typeroo.api.payload.response.MessageResponse;
+import com.typeroo.api.payload.response.PercentileResponse;
+import com.typeroo.api.security.service.UserDetailsImpl;
+import com.typeroo.api.services.LeaderboardEntry;
+import com.typeroo.api.services.LeaderboardService;
+import com.typeroo.api.services.LeaderboardWindow;
+import com.typeroo.api.services.PercentileService;
+import com.typeroo.api.services.UsernameSearchIndex;
+import com.typeroo.api.services.WpmHistogram;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/leaderboard")
+public class LeaderboardController {
+    @Autowired
+    LeaderboardService leaderboardService;
+
+    @Autowired
+    PercentileService percentileService;
+
+    @Autowired
+    UsernameSearchIndex usernameSearchIndex;
+
+    @Value("${app.leaderboard.capacity:1000}")
+    private int capacity;
+
+    @GetMapping
+    public ResponseEntity<?> getLeaderboard(
+            @RequestParam(defaultValue = "60") int duration,
+            @RequestParam(defaultValue = "all_time") String window,
+            @RequestParam(defaultValue = "100") int limit) {
+        LeaderboardWindow lbWindow = parseWindow(window);
+        if (lbWindow == null || !leaderboardService.isTracked(duration)) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Unknown leaderboard"));
+        }
+
+        List<LeaderboardEntry> entries = leaderboardService.top(duration, lbWindow,
+                Math.max(1, Math.min(limit, capacity)));
+        List<LeaderboardEntryResponse> response = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            response.add(toResponse(i + 1, entries.get(i)));
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/rank")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getMyRank(@AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam(defaultValue = "60") int duration,
+            @RequestParam(defaultValue = "all_time") String window) {
+        LeaderboardWindow lbWindow = parseWindow(window);
+        if (lbWindow == null || !leaderboardService.isTracked(duration)) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Unknown leaderboard"));
+        }
+
+        LeaderboardEntry entry = leaderboardService.entryOf(duration, lbWindow, userDetails.getId());
+        int rank = leaderboardService.rankOf(duration, lbWindow, userDetails.getId());
+        if (entry == null || rank < 0)
+            return ResponseEntity.notFound().build();
+
+        return ResponseEntity.ok(toResponse(rank, entry));
+    }
+
+    /**
+     * Where a wpm stands among all tests of a duration, or with
+     * {@code percentile} instead, the wpm at that percentile.
+     */
+    @GetMapping("/percentile")
+    public ResponseEntity<?> getPercentile(
+            @RequestParam(defaultValue = "60") int duration,
+            @RequestParam(required = false) Double wpm,
+            @RequestParam(required = false) Double percentile) {
+        WpmHistogram histogram = percentileService.histogram(duration);
+        if (histogram == null)
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Unknown duration"));
+        if ((wpm == null) == (percentile == null))
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Give either wpm or percentile"));
+
+        if (wpm != null)
+            return ResponseEntity.ok(new PercentileResponse(duration, wpm, histogram.percentileOf(wpm),
+                    histogram.total()));
+        return ResponseEntity.ok(new PercentileResponse(duration, histogram.valueAt(percentile), percentile,
+                histogram.total()));
+    }
+
+    private LeaderboardWindow parseWindow(String window) {
+        try {
+            return LeaderboardWindow.fromParam(window);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private LeaderboardEntryResponse toResponse(int rank, LeaderboardEntry entry) {
+        // Entries keep the name the result was saved under; the index follows renames on every node
+        String username = usernameSearchIndex.usernameOf(entry.getUserId());
+        return new LeaderboardEntryResponse(rank, username != null ? username : entry.getUsername(),
+                entry.getWpm(), entry.getAccuracy(), entry.getTimestamp());
+    }
+}
@@ -1,11 +1,17 @@
 package com.typeroo.api.controllers;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -16,15 +22,24 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.typeroo.api.models.TestResult;
-import com.typeroo.api.models.User;
 import com.typeroo.api.payload.request.TestResultRequest;
+import com.typeroo.api.payload.response.CursorPageResponse;
 import com.typeroo.api.payload.response.MessageResponse;
-import com.typeroo.api.payload.response.UserStatsResponse;
+import com.typeroo.api.repository.HistoryCursor;
 import com.typeroo.api.repository.TestResultRepository;
+import com.typeroo.api.repository.UserIdView;
 import com.typeroo.api.repository.UserRepository;
 import com.typeroo.api.security.service.UserDetailsImpl;
+import com.typeroo.api.services.KeystrokeValidation;
+import com.typeroo.api.services.KeystrokeValidator;
+import com.typeroo.api.services.ProgressPeriod;
+import com.typeroo.api.services.ProgressRollupService;
+import com.typeroo.api.services.PublicProfileCache;
+import com.typeroo.api.services.TestResultIngestionService;
+import com.typeroo.api.services.WordGenerationService;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -36,6 +51,30 @@ public class TestController {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    TestResultIngestionService testResultIngestionService;
+
+    @Autowired
+    ProgressRollupService progressRollupService;
+
+    @Autowired
+    PublicProfileCache publicProfileCache;
+
+    @Autowired
+    KeystrokeValidator keystrokeValidator;
+
+    @Autowired
+    WordGenerationService wordGenerationService;
+
+    @Value("${app.keystrokes.required:false}")
+    private boolean requireKeystrokeLog;
+
+    @Value("${app.words.maxCount:5000}")
+    private int maxWordCount;
+
+    @Value("${app.progress.maxBuckets:400}")
+    private int maxProgressBuckets;
+
     @GetMapping("/history")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> getMyHistory(
@@ -52,34 +91,85 @@ public class TestController {
     public ResponseEntity<?> getUserHistory(
             @RequestParam String username,
             @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+        return CachedResponses.of(publicProfileCache.getHistory(username, page, size), request);
+    }
+
+    @GetMapping("/history/cursor")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getMyHistoryByCursor(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size) {
+        return historySlice(userDetails.getId(), cursor, size);
+    }
 
-        var userOpt = userRepository.findByUsername(username);
+    @GetMapping("/user-history/cursor")
+    public ResponseEntity<?> getUserHistoryByCursor(
+            @RequestParam String username,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+
+        var userOpt = userRepository.findByUsernameAndDeletedAtIsNull(username, UserIdView.class);
         if (userOpt.isEmpty())
             return ResponseEntity.notFound().build();
 
-        Page<TestResult> pageResults = testResultRepository.findByUserIdOrderByTimestampDesc(userOpt.get().getId(),
-                PageRequest.of(page, size));
-        return ResponseEntity.ok(pageResults);
+        return historySlice(userOpt.get().getId(), cursor, size);
+    }
+
+    private ResponseEntity<?> historySlice(String userId, String cursor, int size) {
+        HistoryCursor after;
+        try {
+            after = cursor == null || cursor.isEmpty() ? null : HistoryCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Invalid cursor"));
+        }
+
+        Slice<TestResult> slice = testResultRepository.findHistoryAfter(userId, after,
+                Math.max(1, Math.min(size, 100)));
+        List<TestResult> content = slice.getContent();
+        String nextCursor = slice.hasNext() ? HistoryCursor.after(content.get(content.size() - 1)).encode() : null;
+        return ResponseEntity.ok(new CursorPageResponse<>(content, nextCursor, slice.hasNext()));
     }
 
     @GetMapping("/stats")
-    public ResponseEntity<?> getUserStats(@RequestParam String username) {
-        var userOpt = userRepository.findByUsername(username);
+    public ResponseEntity<?> getUserStats(@RequestParam String username, WebRequest request) {
+        return CachedResponses.of(publicProfileCache.getStats(username), request);
+    }
+
+    /**
+     * Progress over a date range from the daily or weekly rollups. Defaults to
+     * the last 90 days, by day for ranges up to 92 days and by week beyond.
+     */
+    @GetMapping("/progress")
+    public ResponseEntity<?> getProgress(
+            @RequestParam String username,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String period,
+            @RequestParam(required = false) Integer duration) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(89);
+        if (start.isAfter(end))
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Range starts after it ends"));
+
+        ProgressPeriod progressPeriod;
+        try {
+            progressPeriod = period != null ? ProgressPeriod.fromParam(period)
+                    : start.plusDays(92).isAfter(end) ? ProgressPeriod.DAY : ProgressPeriod.WEEK;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Unknown period"));
+        }
+        if (progressPeriod.bucketsBetween(start, end) > maxProgressBuckets)
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Range too large for period"));
+
+        var userOpt = userRepository.findByUsernameAndDeletedAtIsNull(username, UserIdView.class);
         if (userOpt.isEmpty())
             return ResponseEntity.notFound().build();
 
-        String userId = userOpt.get().getId();
-
-        List<TestResult> tests10 = testResultRepository.findByUserIdAndDurationOrderByWpmDesc(userId, 10);
-        List<TestResult> tests30 = testResultRepository.findByUserIdAndDurationOrderByWpmDesc(userId, 30);
-        List<TestResult> tests60 = testResultRepository.findByUserIdAndDurationOrderByWpmDesc(userId, 60);
-
-        double max10 = tests10.isEmpty() ? 0 : tests10.get(0).getWpm();
-        double max30 = tests30.isEmpty() ? 0 : tests30.get(0).getWpm();
-        double max60 = tests60.isEmpty() ? 0 : tests60.get(0).getWpm();
-
-        return ResponseEntity.ok(new UserStatsResponse(max10, max30, max60));
+        return ResponseEntity.ok(progressRollupService.getProgress(userOpt.get().getId(), progressPeriod, start, end,
+                duration));
     }
 
     @PostMapping("/save")
@@ -87,24 +177,68 @@ public class TestController {
     public ResponseEntity<?> saveTestResult(@AuthenticationPrincipal UserDetailsImpl userDetails,
             @RequestBody TestResultRequest request) {
 
-        TestResult result = new TestResult(
-                userDetails.getId(),
-                userDetails.getUsername(),
-                request.getWpm(),
-                request.getRawWpm(),
-                request.getAccuracy(),
-                request.getDuration(),
-                request.getCorrectChars(),
-                request.getIncorrectChars());
+        TestResult result;
+        if (request.getKeystrokeLog() != null) {
+            KeystrokeValidation validation;
+            try {
+                validation = validateKeystrokes(request);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(new MessageResponse("Error: Invalid keystroke log"));
+            }
+            if (!validation.isValid()) {
+                return ResponseEntity.unprocessableEntity()
+                        .body(new MessageResponse("Error: Result failed validation " + validation.getFlags()));
+            }
+            result = new TestResult(
+                    userDetails.getId(),
+                    userDetails.getUsername(),
+                    validation.getWpm(),
+                    validation.getRawWpm(),
+                    validation.getAccuracy(),
+                    request.getDuration(),
+                    validation.getCorrectChars(),
+                    validation.getIncorrectChars());
+        } else if (requireKeystrokeLog) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Keystroke log required"));
+        } else {
+            result = new TestResult(
+                    userDetails.getId(),
+                    userDetails.getUsername(),
+                    request.getWpm(),
+                    request.getRawWpm(),
+                    request.getAccuracy(),
+                    request.getDuration(),
+                    request.getCorrectChars(),
+                    request.getIncorrectChars());
+        }
         result.setTimestamp(LocalDateTime.now());
 
-        testResultRepository.save(result);
-
-        userRepository.findById(userDetails.getId()).ifPresent(u -> {
-            u.setTotalTests(u.getTotalTests() + 1);
-            userRepository.save(u);
-        });
-
+        if (!testResultIngestionService.submit(result)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new MessageResponse("Error: Too many results being saved, try again shortly"));
+        }
+        // Bests, leaderboards, rollups, percentiles and totals follow once the result is stored
         return ResponseEntity.ok(new MessageResponse("Test result saved successfully"));
     }
+
+    /**
+     * Replays the log against the generated text when the request names its
+     * language and seed. Otherwise (custom texts, or an older client) only
+     * timing, raw speed and the total count are verified, and the saved wpm
+     * and accuracy use the client's correct/incorrect split.
+     *
+     * @throws IllegalArgumentException if the log is not valid base64
+     */
+    private KeystrokeValidation validateKeystrokes(TestResultRequest request) {
+        byte[] log = Base64.getDecoder().decode(request.getKeystrokeLog());
+        String target = null;
+        if (request.getSeed() != null && request.getLanguage() != null
+                && wordGenerationService.hasLanguage(request.getLanguage())) {
+            int count = request.getWordCount() == null ? 150 : request.getWordCount();
+            target = wordGenerationService.generateText(request.getLanguage(), request.getSeed(),
+                    Math.max(1, Math.min(count, maxWordCount)));
+        }
+        return keystrokeValidator.validate(log, target, request.getDuration(), request.getCorrectChars(),
+                request.getIncorrectChars());
+    }
 }
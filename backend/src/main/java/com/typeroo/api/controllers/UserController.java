@@ -1,15 +1,17 @@
 package com.typeroo.api.controllers;
 
-import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,17 +23,27 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.util.StringUtils;
-import java.nio.file.*;
 import java.io.IOException;
 
 import com.typeroo.api.models.User;
 import com.typeroo.api.payload.request.UpdateProfileRequest;
 import com.typeroo.api.payload.request.UpdateSettingsRequest;
 import com.typeroo.api.payload.response.MessageResponse;
+import com.typeroo.api.payload.response.PrivateProfileView;
 import com.typeroo.api.repository.UserRepository;
+import com.typeroo.api.security.PasswordHashingService;
+import com.typeroo.api.security.service.TokenRevocationService;
 import com.typeroo.api.security.service.UserDetailsImpl;
+import com.typeroo.api.services.AccountPurgeService;
+import com.typeroo.api.services.ProfileChangedEvent;
+import com.typeroo.api.services.PublicProfileCache;
+import com.typeroo.api.services.UsernameSearchIndex;
+import com.typeroo.api.storage.AvatarStorageService;
+import com.typeroo.api.storage.AvatarThumbnailService;
+import com.typeroo.api.storage.BlobTooLargeException;
+import com.typeroo.api.storage.UnsupportedImageException;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -41,64 +53,85 @@ public class UserController {
     UserRepository userRepository;
 
     @Autowired
-    PasswordEncoder encoder;
+    PasswordHashingService passwordHashingService;
+
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    UsernameSearchIndex usernameSearchIndex;
+
+    @Autowired
+    AvatarStorageService avatarStorageService;
+
+    @Autowired
+    AvatarThumbnailService avatarThumbnailService;
+
+    @Autowired
+    PublicProfileCache publicProfileCache;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    AccountPurgeService accountPurgeService;
+
+    @Value("${app.publicBaseUrl:http://localhost:8080}")
+    private String publicBaseUrl;
 
     @GetMapping("/profile")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> getMyProfile(@AuthenticationPrincipal UserDetailsImpl userDetails) {
-        Optional<User> user = userRepository.findById(userDetails.getId());
-        if (user.isPresent()) {
-            user.get().setPassword(null); // Don't return password
-            return ResponseEntity.ok(user.get());
+        Optional<PrivateProfileView> profile = userRepository.findProjectedById(userDetails.getId(),
+                PrivateProfileView.class);
+        if (profile.isPresent()) {
+            return ResponseEntity.ok(profile.get());
         }
         return ResponseEntity.notFound().build();
     }
 
     @GetMapping("/{username}")
-    public ResponseEntity<?> getUserProfile(@PathVariable String username) {
-        Optional<User> user = userRepository.findByUsername(username);
-        if (user.isPresent()) {
-            user.get().setPassword(null);
-            user.get().setEmail(null); // specific privacy for public profile
-            return ResponseEntity.ok(user.get());
-        }
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<?> getUserProfile(@PathVariable String username, WebRequest request) {
+        return CachedResponses.of(publicProfileCache.getProfile(username), request);
     }
 
     @PostMapping("/upload-avatar")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> uploadAvatar(@RequestParam("file") MultipartFile file,
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
-        try {
-            String fileName = StringUtils.cleanPath(file.getOriginalFilename());
-            // Basic validation
-            if (fileName.contains("..")) {
-                return ResponseEntity.badRequest().body(new MessageResponse("Filename contains invalid path sequence"));
-            }
-
-            // Randomize name to avoid conflicts
-            String newFileName = userDetails.getId() + "_" + System.currentTimeMillis() + "_" + fileName;
-            Path uploadDir = Paths.get("./uploads");
-            if (!Files.exists(uploadDir)) {
-                Files.createDirectories(uploadDir);
-            }
-
-            Path targetLocation = uploadDir.resolve(newFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+        Optional<User> userOpt = userRepository.findById(userDetails.getId());
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
 
-            // Create URL
-            // Assuming default port 8080 and context /api or root
-            String fileUrl = "http://localhost:8080/uploads/" + newFileName;
+        try {
+            // Identical images are stored once; the key is derived from the content digest
+            String key = avatarStorageService.store(file.getInputStream());
+            String fileUrl = publicBaseUrl + "/avatars/" + key;
+            avatarThumbnailService.submit(key);
 
-            Optional<User> userOpt = userRepository.findById(userDetails.getId());
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                user.setAvatarUrl(fileUrl);
+            User user = userOpt.get();
+            String previousKey = user.getAvatarKey();
+            user.setAvatarUrl(fileUrl);
+            user.setAvatarKey(key);
+            user.setUpdatedAt(LocalDateTime.now());
+            try {
                 userRepository.save(user);
-                return ResponseEntity.ok(new MessageResponse(fileUrl)); // Return the new URL
+            } catch (RuntimeException ex) {
+                // Nobody points at the new blob, so its reference would never be released
+                avatarStorageService.release(key);
+                throw ex;
             }
+            usernameSearchIndex.put(user);
+            eventPublisher.publishEvent(new ProfileChangedEvent(user.getUsername()));
+            avatarStorageService.release(previousKey);
 
-            return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(new MessageResponse(fileUrl)); // Return the new URL
+        } catch (UnsupportedImageException ex) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + ex.getMessage()));
+        } catch (BlobTooLargeException ex) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(new MessageResponse("Error: " + ex.getMessage()));
         } catch (IOException ex) {
             return ResponseEntity.status(500).body(new MessageResponse("Could not upload file: " + ex.getMessage()));
         }
@@ -114,35 +147,45 @@ public class UserController {
             User user = userOpt.get();
             if (request.getBio() != null && !request.getBio().trim().isEmpty())
                 user.setBio(request.getBio());
-            if (request.getAvatarUrl() != null && !request.getAvatarUrl().trim().isEmpty())
+            String releasedKey = null;
+            if (request.getAvatarUrl() != null && !request.getAvatarUrl().trim().isEmpty()
+                    && !request.getAvatarUrl().equals(user.getAvatarUrl())) {
+                // Pointing at an external image drops the reference to any uploaded one
+                releasedKey = user.getAvatarKey();
                 user.setAvatarUrl(request.getAvatarUrl());
+                user.setAvatarKey(null);
+                user.setUpdatedAt(LocalDateTime.now());
+            }
 
             userRepository.save(user);
+            usernameSearchIndex.put(user);
+            eventPublisher.publishEvent(new ProfileChangedEvent(user.getUsername()));
+            avatarStorageService.release(releasedKey);
             return ResponseEntity.ok(new MessageResponse("Profile updated successfully"));
         }
         return ResponseEntity.notFound().build();
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchUsers(@RequestParam String query) {
+    public ResponseEntity<?> searchUsers(@RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         if (query == null || query.trim().isEmpty()) {
             return ResponseEntity.badRequest().body(new MessageResponse("Query cannot be empty"));
         }
-        List<User> users = userRepository.findByUsernameContainingIgnoreCase(query);
-        users.forEach(u -> {
-            u.setPassword(null);
-            u.setEmail(null);
-        });
-        return ResponseEntity.ok(users);
+        if (page < 0 || size < 1) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Invalid page or size"));
+        }
+        return ResponseEntity.ok(usernameSearchIndex.search(query, page, Math.min(size, 50)));
     }
 
     @PostMapping("/settings")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<?> updateSettings(@AuthenticationPrincipal UserDetailsImpl userDetails,
+    public CompletableFuture<ResponseEntity<?>> updateSettings(@AuthenticationPrincipal UserDetailsImpl userDetails,
             @RequestBody UpdateSettingsRequest request) {
         Optional<User> userOpt = userRepository.findById(userDetails.getId());
         if (!userOpt.isPresent()) {
-            return ResponseEntity.notFound().build();
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
         }
         User user = userOpt.get();
 
@@ -156,13 +199,33 @@ public class UserController {
                 (request.getEmail() != null && !request.getEmail().equals(user.getEmail())) ||
                 (request.getPassword() != null && !request.getPassword().isEmpty());
 
-        if (sensitiveChange) {
-            if (request.getCurrentPassword() == null
-                    || !encoder.matches(request.getCurrentPassword(), user.getPassword())) {
-                return ResponseEntity.badRequest().body(new MessageResponse("Error: Invalid current password"));
-            }
+        if (!sensitiveChange) {
+            return CompletableFuture.completedFuture(applySettings(user, request, null));
+        }
+        if (request.getCurrentPassword() == null) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(new MessageResponse("Error: Invalid current password")));
         }
 
+        // Only BCrypt runs on the hashing pool; the settings are saved back on the request executor
+        return passwordHashingService.matches(request.getCurrentPassword(), user.getPassword())
+                .thenComposeAsync(valid -> {
+                    if (!valid) {
+                        return CompletableFuture.<ResponseEntity<?>>completedFuture(ResponseEntity.badRequest()
+                                .body(new MessageResponse("Error: Invalid current password")));
+                    }
+                    if (request.getPassword() != null && !request.getPassword().isEmpty()) {
+                        return passwordHashingService.encode(request.getPassword())
+                                .thenApplyAsync(hash -> applySettings(user, request, hash),
+                                        passwordHashingService.continuations());
+                    }
+                    return CompletableFuture.<ResponseEntity<?>>completedFuture(applySettings(user, request, null));
+                }, passwordHashingService.continuations());
+    }
+
+    private ResponseEntity<?> applySettings(User user, UpdateSettingsRequest request, String newPasswordHash) {
+        String previousUsername = user.getUsername();
+        boolean revokeTokens = false;
         if (request.getUsername() != null && !request.getUsername().equals(user.getUsername())) {
             if (userRepository.existsByUsername(request.getUsername())) {
                 return ResponseEntity.badRequest().body(new MessageResponse("Error: Username is already taken!"));
@@ -176,6 +239,8 @@ public class UserController {
             }
             user.setUsername(request.getUsername());
             user.setLastUsernameUpdate(LocalDateTime.now());
+            user.setUpdatedAt(user.getLastUsernameUpdate());
+            revokeTokens = true;
         }
 
         if (request.getEmail() != null && !request.getEmail().equals(user.getEmail())) {
@@ -185,18 +250,30 @@ public class UserController {
             user.setEmail(request.getEmail());
         }
 
-        if (request.getPassword() != null && !request.getPassword().isEmpty()) {
-            user.setPassword(encoder.encode(request.getPassword()));
+        if (newPasswordHash != null) {
+            user.setPassword(newPasswordHash);
+            revokeTokens = true;
+        }
+
+        if (revokeTokens) {
+            user.setTokenEpoch(user.getTokenEpoch() + 1);
+            user.setTokensRevokedAt(LocalDateTime.now());
         }
 
         userRepository.save(user);
+        usernameSearchIndex.put(user);
+        eventPublisher.publishEvent(new ProfileChangedEvent(previousUsername, user.getUsername()));
+        if (revokeTokens) {
+            tokenRevocationService.revoke(user.getId(), user.getTokenEpoch());
+        }
         return ResponseEntity.ok(new MessageResponse("Settings updated successfully"));
     }
 
     @DeleteMapping("/me")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> deleteAccount(@AuthenticationPrincipal UserDetailsImpl userDetails) {
-        userRepository.deleteById(userDetails.getId());
+        // Results, texts and the avatar are purged in the background
+        accountPurgeService.markDeleted(userDetails.getId(), userDetails.getUsername());
         return ResponseEntity.ok(new MessageResponse("Account deleted successfully"));
     }
 }
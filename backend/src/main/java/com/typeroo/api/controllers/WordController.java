@@ -0,0 +1,57 @@
+package com.typeroo.api.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.typeroo.api.services.WordGenerationService;
+
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = "X-Seed")
+@RestController
+@RequestMapping("/api/words")
+public class WordController {
+    @Autowired
+    WordGenerationService wordGenerationService;
+
+    @Value("${app.words.maxCount:5000}")
+    private int maxCount;
+
+    @GetMapping("/languages")
+    public ResponseEntity<?> getLanguages() {
+        return ResponseEntity.ok(wordGenerationService.getLanguages());
+    }
+
+    /**
+     * Streams space-separated words as plain text. Without a seed one is
+     * chosen and returned in {@code X-Seed}, so the text can be reproduced.
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> generate(
+            @RequestParam(defaultValue = "english") String language,
+            @RequestParam(defaultValue = "150") int count,
+            @RequestParam(required = false) Long seed) {
+        if (!wordGenerationService.hasLanguage(language)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown language");
+        }
+
+        int words = Math.max(1, Math.min(count, maxCount));
+        long effectiveSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+        StreamingResponseBody body = out -> wordGenerationService.generate(language, effectiveSeed, words, out);
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .header("X-Seed", Long.toString(effectiveSeed))
+                .body(body);
+    }
+}
@@ -0,0 +1,47 @@
+package com.typeroo.api.models;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "account_deletions")
+public class AccountDeletion {
+    // One pending purge per deleted user, keyed by the user id
+    @Id
+    private String userId;
+
+    private String username;
+
+    // Dependent data still to purge; stages run in declaration order
+    private Stage stage = Stage.TEST_RESULTS;
+
+    // Documents removed so far, across all stages
+    private long purged;
+
+    private LocalDateTime requestedAt;
+
+    // Avatar blob taken from the user whose reference is still to be released
+    private String avatarKey;
+
+    // The node working on this purge holds it until then
+    private LocalDateTime leaseUntil;
+
+    // Set once purged: the row is kept, and the user's tokens stay revoked, until every
+    // token issued before the deletion has expired; a TTL index removes it then
+    private LocalDateTime revokeUntil;
+
+    public enum Stage {
+        TEST_RESULTS,
+        CUSTOM_TEXTS,
+        PERSONAL_DATA,
+        AVATAR,
+        ACCOUNT,
+        DONE
+    }
+}
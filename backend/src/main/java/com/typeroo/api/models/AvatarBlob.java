@@ -0,0 +1,35 @@
+package com.typeroo.api.models;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "avatar_blobs")
+public class AvatarBlob {
+    // Storage key: sha-256 hex digest plus file extension
+    @Id
+    private String key;
+
+    // Number of users whose current avatar is this blob
+    private long refCount;
+
+    private long size;
+
+    private String contentType;
+
+    private LocalDateTime createdAt;
+
+    // Set when refCount drops to zero; the blob is collected after a grace period
+    private LocalDateTime unreferencedSince;
+
+    // Lease of the garbage collector deleting the files; new references wait for it to finish
+    private String collectClaim;
+
+    private LocalDateTime collectingUntil;
+}
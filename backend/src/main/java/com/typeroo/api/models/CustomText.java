@@ -6,7 +6,6 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -19,17 +18,29 @@ public class CustomText {
 
     private String userId;
 
-    @NotBlank
+    // Plain content for short texts; null when stored in compressedContent
     private String content;
 
+    // Deflated UTF-8 content for texts over the compression threshold
+    private byte[] compressedContent;
+
+    // Summary fields, so listings never need to read the content
+    private String preview;
+
+    private int length;
+
+    private int wordCount;
+
+    // Hex SHA-256 prefix of the content, used as its ETag
+    private String contentHash;
+
     private boolean isPublic;
 
     @CreatedDate
     private LocalDateTime createdAt;
 
-    public CustomText(String userId, String content, boolean isPublic) {
+    public CustomText(String userId, boolean isPublic) {
         this.userId = userId;
-        this.content = content;
         this.isPublic = isPublic;
         this.createdAt = LocalDateTime.now();
     }
@@ -0,0 +1,31 @@
+package com.typeroo.api.models;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "percentile_sketches")
+public class PercentileSketch {
+    // One document per test duration, shared by every node
+    @Id
+    private String duration;
+
+    // Histogram bucket index -> tests in that bucket; nodes add their deltas with $inc
+    private Map<String, Long> counts = new HashMap<>();
+
+    // Set together with the counts by the node that seeded them from test_results
+    private boolean seeded;
+
+    // Lease of the node seeding the counts; retried by another node once it expires
+    private String seedClaim;
+
+    private LocalDateTime seedingUntil;
+}
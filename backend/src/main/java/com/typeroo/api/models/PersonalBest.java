@@ -0,0 +1,40 @@
+package com.typeroo.api.models;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "personal_bests")
+public class PersonalBest {
+    // One document per user, keyed by the user id
+    @Id
+    private String userId;
+
+    // Keyed by duration in seconds ("10", "30", "60", ...)
+    private Map<String, Best> bests = new HashMap<>();
+
+    // Set once bests from results saved before this record existed are merged in
+    private boolean backfilled;
+
+    public PersonalBest(String userId) {
+        this.userId = userId;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Best {
+        private double wpm;
+        private double accuracy;
+        private LocalDateTime timestamp;
+    }
+}
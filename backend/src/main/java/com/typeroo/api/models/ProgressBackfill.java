@@ -0,0 +1,20 @@
+package com.typeroo.api.models;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "progress_backfills")
+public class ProgressBackfill {
+    // One marker per user whose rollups were rebuilt from results saved before rollups existed
+    @Id
+    private String userId;
+
+    private LocalDateTime backfilledAt;
+}
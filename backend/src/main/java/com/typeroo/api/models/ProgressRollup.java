@@ -0,0 +1,42 @@
+package com.typeroo.api.models;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "progress_rollups")
+public class ProgressRollup {
+    // "<userId>:<period>:<start>", so every save upserts a known document
+    @Id
+    private String id;
+
+    private String userId;
+    private String period; // DAY or WEEK
+    private LocalDate start;
+
+    // Keyed by duration in seconds ("10", "30", "60", ...)
+    private Map<String, Totals> durations = new HashMap<>();
+
+    public static String idOf(String userId, String period, LocalDate start) {
+        return userId + ":" + period + ":" + start;
+    }
+
+    // Sums rather than means, so concurrent saves can apply with $inc
+    @Data
+    @NoArgsConstructor
+    public static class Totals {
+        private int count;
+        private double wpmSum;
+        private double wpmMax;
+        private double accuracySum;
+        private long seconds;
+    }
+}
@@ -40,20 +40,40 @@ public class User {
 
     private String avatarUrl;
 
+    // Storage key of the uploaded avatar blob this user references, if any
+    private String avatarKey;
+
     // Total tests taken
     private long totalTests = 0;
 
+    // Correct + incorrect characters typed across all tests
+    private long totalChars = 0;
+
+    private long totalTypingSeconds = 0;
+
     @CreatedDate
     private LocalDateTime joinedAt;
 
     private LocalDateTime lastUsernameUpdate;
 
+    // Set on signup and whenever the username or avatar changes; other nodes poll it to refresh their search index
+    private LocalDateTime updatedAt;
+
     private String themePreference = "dark"; // default theme
 
+    // Bumped to invalidate every token issued before the change
+    private long tokenEpoch = 0;
+
+    private LocalDateTime tokensRevokedAt;
+
+    // Set when the account is deleted; the document stays until its data is purged
+    private LocalDateTime deletedAt;
+
     public User(String username, String email, String password) {
         this.username = username;
         this.email = email;
         this.password = password;
         this.joinedAt = LocalDateTime.now();
+        this.updatedAt = this.joinedAt;
     }
 }
@@ -1,11 +1,15 @@
 package com.typeroo.api.payload.request;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
 public class CustomTextRequest {
+    public static final int MAX_LENGTH = 100000;
+
     @NotBlank
+    @Size(max = MAX_LENGTH)
     private String content;
 
     private boolean isPublic;
@@ -10,4 +10,13 @@ public class TestResultRequest {
     private int duration;
     private int correctChars;
     private int incorrectChars;
+
+    // Optional base64 KeystrokeLog; when present the metrics above are recomputed from it
+    private String keystrokeLog;
+
+    // Word generator parameters of the test text, so the server can replay against it.
+    // Without a seed only timing and raw speed are verified, not correctness
+    private String language;
+    private Long seed;
+    private Integer wordCount;
 }
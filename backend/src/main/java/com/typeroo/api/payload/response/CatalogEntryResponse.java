@@ -0,0 +1,18 @@
+package com.typeroo.api.payload.response;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CatalogEntryResponse {
+    private String id;
+    private String preview;
+    private int length;
+    private int wordCount;
+    private String lengthFacet;
+    private String difficulty;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,21 @@
+package com.typeroo.api.payload.response;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CatalogSearchResponse {
+    private List<CatalogEntryResponse> content;
+
+    // Pass back as ?cursor= to fetch the next page; null on the last page
+    private String nextCursor;
+
+    private boolean hasNext;
+
+    // Match counts per facet value for the query, before facet filters are applied
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,17 @@
+package com.typeroo.api.payload.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+
+    // Pass back as ?cursor= to fetch the next page; null on the last page
+    private String nextCursor;
+
+    private boolean hasNext;
+}
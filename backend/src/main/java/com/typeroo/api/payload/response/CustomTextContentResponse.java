@@ -0,0 +1,11 @@
+package com.typeroo.api.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CustomTextContentResponse {
+    private String id;
+    private String content;
+}
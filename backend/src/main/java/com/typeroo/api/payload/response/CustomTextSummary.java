@@ -0,0 +1,20 @@
+package com.typeroo.api.payload.response;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Listing entry for a custom text; the content itself is fetched per id.
+ */
+@Data
+@NoArgsConstructor
+public class CustomTextSummary {
+    private String id;
+    private String preview;
+    private int length;
+    private int wordCount;
+    private boolean isPublic;
+    private LocalDateTime createdAt;
+}
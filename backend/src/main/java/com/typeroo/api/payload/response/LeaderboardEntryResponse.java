@@ -0,0 +1,16 @@
+package com.typeroo.api.payload.response;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LeaderboardEntryResponse {
+    private int rank;
+    private String username;
+    private double wpm;
+    private double accuracy;
+    private LocalDateTime timestamp;
+}
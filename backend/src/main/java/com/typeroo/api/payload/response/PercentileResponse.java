@@ -0,0 +1,14 @@
+package com.typeroo.api.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PercentileResponse {
+    private int duration;
+    private double wpm;
+    // Share of tests slower than wpm, from 0 to 100
+    private double percentile;
+    private long sampleSize;
+}
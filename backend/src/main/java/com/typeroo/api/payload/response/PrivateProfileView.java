@@ -0,0 +1,26 @@
+package com.typeroo.api.payload.response;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Read model for {@code GET /api/users/profile}: the public fields plus what
+ * only the owner sees (email, theme, username change cooldown).
+ */
+@Data
+@NoArgsConstructor
+public class PrivateProfileView {
+    private String id;
+    private String username;
+    private String email;
+    private String bio;
+    private String avatarUrl;
+    private long totalTests;
+    private long totalChars;
+    private long totalTypingSeconds;
+    private LocalDateTime joinedAt;
+    private LocalDateTime lastUsernameUpdate;
+    private String themePreference;
+}
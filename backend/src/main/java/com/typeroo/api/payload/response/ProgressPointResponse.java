@@ -0,0 +1,18 @@
+package com.typeroo.api.payload.response;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProgressPointResponse {
+    private LocalDate start;
+    private int duration;
+    private int count;
+    private double meanWpm;
+    private double maxWpm;
+    private double meanAccuracy;
+    private long totalSeconds;
+}
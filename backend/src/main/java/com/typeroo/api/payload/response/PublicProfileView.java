@@ -0,0 +1,24 @@
+package com.typeroo.api.payload.response;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Read model for {@code GET /api/users/{username}}. Only these fields are
+ * fetched from the users collection; credentials, email and roles never leave
+ * the database.
+ */
+@Data
+@NoArgsConstructor
+public class PublicProfileView {
+    private String id;
+    private String username;
+    private String bio;
+    private String avatarUrl;
+    private long totalTests;
+    private long totalChars;
+    private long totalTypingSeconds;
+    private LocalDateTime joinedAt;
+}
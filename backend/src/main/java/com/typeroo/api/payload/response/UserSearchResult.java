@@ -0,0 +1,12 @@
+package com.typeroo.api.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UserSearchResult {
+    private String id;
+    private String username;
+    private String avatarUrl;
+}
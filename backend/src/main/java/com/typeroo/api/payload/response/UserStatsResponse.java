@@ -1,12 +1,29 @@
 package com.typeroo.api.payload.response;
 
-import lombok.AllArgsConstructor;
+import java.util.Map;
+
+import com.typeroo.api.models.PersonalBest;
+
 import lombok.Data;
 
 @Data
-@AllArgsConstructor
 public class UserStatsResponse {
     private double maxWpm10;
     private double maxWpm30;
     private double maxWpm60;
+
+    // Every duration the user has a best for, keyed by duration in seconds
+    private Map<String, PersonalBest.Best> bests;
+
+    public UserStatsResponse(Map<String, PersonalBest.Best> bests) {
+        this.bests = bests;
+        this.maxWpm10 = maxWpm(bests, 10);
+        this.maxWpm30 = maxWpm(bests, 30);
+        this.maxWpm60 = maxWpm(bests, 60);
+    }
+
+    private static double maxWpm(Map<String, PersonalBest.Best> bests, int duration) {
+        PersonalBest.Best best = bests.get(String.valueOf(duration));
+        return best == null ? 0 : best.getWpm();
+    }
 }
@@ -7,4 +7,7 @@ import com.typeroo.api.models.CustomText;
 
 public interface CustomTextRepository extends MongoRepository<CustomText, String> {
     List<CustomText> findByUserId(String userId);
+
+    // Projection: only the properties of {@code type} are fetched
+    <T> List<T> findByUserId(String userId, Class<T> type);
 }
@@ -0,0 +1,54 @@
+package com.typeroo.api.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.typeroo.api.models.TestResult;
+
+/**
+ * Opaque continuation token for history pages: the (timestamp, id) of the
+ * last result returned, base64url-encoded.
+ */
+public class HistoryCursor {
+    private final LocalDateTime timestamp;
+    private final String id;
+
+    public HistoryCursor(LocalDateTime timestamp, String id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static HistoryCursor after(TestResult result) {
+        return new HistoryCursor(result.getTimestamp(), result.getId());
+    }
+
+    public String encode() {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static HistoryCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int sep = raw.indexOf('|');
+        if (sep < 0)
+            throw new IllegalArgumentException("Malformed cursor");
+        try {
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.typeroo.api.repository;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import com.typeroo.api.models.AccountDeletion;
+import com.typeroo.api.models.AvatarBlob;
+import com.typeroo.api.models.CustomText;
+import com.typeroo.api.models.ProgressRollup;
+import com.typeroo.api.models.TestResult;
+import com.typeroo.api.models.User;
+
+/**
+ * Creates the indexes every repository query relies on before the app starts
+ * serving, then checks they all exist. RepositoryQueryPlanTest checks that the
+ * queries actually use them.
+ */
+@Component
+public class MongoIndexManager {
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        ensure(User.class, new Index().on("username", Sort.Direction.ASC).unique().named("username_unique"));
+        ensure(User.class, new Index().on("email", Sort.Direction.ASC).unique().named("email_unique"));
+        ensure(User.class, new Index().on("tokensRevokedAt", Sort.Direction.ASC).sparse()
+                .named("tokensRevokedAt_sparse"));
+        ensure(User.class, new Index().on("updatedAt", Sort.Direction.ASC).sparse().named("updatedAt_sparse"));
+
+        ensure(TestResult.class, new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named("userId_timestamp_id"));
+        ensure(TestResult.class, new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("duration", Sort.Direction.ASC)
+                .on("wpm", Sort.Direction.DESC)
+                .named("userId_duration_wpm"));
+
+        ensure(CustomText.class, new Index().on("userId", Sort.Direction.ASC).named("userId"));
+
+        ensure(ProgressRollup.class, new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("period", Sort.Direction.ASC)
+                .on("start", Sort.Direction.ASC)
+                .named("userId_period_start"));
+
+        // Drops finished purges once the deleted user's last token has expired
+        ensure(AccountDeletion.class, new Index().on("revokeUntil", Sort.Direction.ASC).expire(0)
+                .named("revokeUntil_ttl"));
+
+        ensure(AvatarBlob.class, new Index().on("unreferencedSince", Sort.Direction.ASC).sparse()
+                .named("unreferencedSince_sparse"));
+    }
+
+    private void ensure(Class<?> entity, Index index) {
+        IndexOperations ops = mongoTemplate.indexOps(entity);
+        String name = (String) index.getIndexOptions().get("name");
+        try {
+            ops.ensureIndex(index);
+        } catch (Exception e) {
+            // Typically duplicate data blocking a unique index; queries still work, only slower
+            logger.error("Cannot create index {} on {}: {}", name, mongoTemplate.getCollectionName(entity),
+                    e.getMessage());
+        }
+
+        try {
+            Set<String> existing = ops.getIndexInfo().stream().map(IndexInfo::getName).collect(Collectors.toSet());
+            if (!existing.contains(name)) {
+                logger.error("Index {} is missing on {}; present: {}", name, mongoTemplate.getCollectionName(entity),
+                        List.copyOf(existing));
+            }
+        } catch (Exception e) {
+            // Mongo unreachable: startup goes on, as when the index cannot be created
+            logger.error("Cannot list indexes on {}: {}", mongoTemplate.getCollectionName(entity), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.typeroo.api.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import com.typeroo.api.models.PersonalBest;
+
+public interface PersonalBestRepository extends MongoRepository<PersonalBest, String> {
+}
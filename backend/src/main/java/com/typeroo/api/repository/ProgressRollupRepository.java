@@ -0,0 +1,15 @@
+package com.typeroo.api.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.typeroo.api.models.ProgressRollup;
+
+public interface ProgressRollupRepository extends MongoRepository<ProgressRollup, String> {
+    // A Range rather than two dates: Between with plain values excludes both bounds
+    List<ProgressRollup> findByUserIdAndPeriodAndStartBetweenOrderByStartAsc(String userId, String period,
+            Range<LocalDate> start);
+}
@@ -0,0 +1,13 @@
+package com.typeroo.api.repository;
+
+import org.springframework.data.domain.Slice;
+
+import com.typeroo.api.models.TestResult;
+
+public interface TestResultRepositoryCustom {
+    /**
+     * Newest-first history page that seeks past {@code after} on
+     * (timestamp, id) instead of skipping, and runs no count query.
+     */
+    Slice<TestResult> findHistoryAfter(String userId, HistoryCursor after, int size);
+}
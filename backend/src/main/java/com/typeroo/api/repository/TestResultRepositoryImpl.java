@@ -0,0 +1,38 @@
+package com.typeroo.api.repository;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.typeroo.api.models.TestResult;
+
+public class TestResultRepositoryImpl implements TestResultRepositoryCustom {
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Override
+    public Slice<TestResult> findHistoryAfter(String userId, HistoryCursor after, int size) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (after != null) {
+            criteria.orOperator(
+                    Criteria.where("timestamp").lt(after.getTimestamp()),
+                    Criteria.where("timestamp").is(after.getTimestamp()).and("_id").lt(after.getId()));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "_id"))
+                .limit(size + 1);
+
+        List<TestResult> results = mongoTemplate.find(query, TestResult.class);
+        boolean hasNext = results.size() > size;
+        if (hasNext)
+            results = results.subList(0, size);
+        return new SliceImpl<>(results, PageRequest.of(0, size), hasNext);
+    }
+}
@@ -0,0 +1,8 @@
+package com.typeroo.api.repository;
+
+/**
+ * Closed projection for lookups that only need to resolve a username to an id.
+ */
+public interface UserIdView {
+    String getId();
+}
@@ -1,19 +1,22 @@
 package com.typeroo.api.repository;
 
-import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 import com.typeroo.api.models.User;
 
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     Optional<User> findByUsername(String username);
 
+    // Projections: only the properties of {@code type} are fetched. Skips
+    // accounts that are deleted but not yet purged.
+    <T> Optional<T> findByUsernameAndDeletedAtIsNull(String username, Class<T> type);
+
+    <T> Optional<T> findProjectedById(String id, Class<T> type);
+
     Boolean existsByUsername(String username);
 
     Boolean existsByEmail(String email);
 
     Optional<User> findByEmail(String email);
-
-    List<User> findByUsernameContainingIgnoreCase(String username);
 }
@@ -0,0 +1,9 @@
+package com.typeroo.api.repository;
+
+public interface UserRepositoryCustom {
+    /**
+     * Bumps the user's running totals with a single server-side $inc, without
+     * reading or rewriting the rest of the document.
+     */
+    void incrementTotals(String userId, long tests, long chars, long typingSeconds);
+}
@@ -0,0 +1,23 @@
+package com.typeroo.api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.typeroo.api.models.User;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Override
+    public void incrementTotals(String userId, long tests, long chars, long typingSeconds) {
+        Update update = new Update()
+                .inc("totalTests", tests)
+                .inc("totalChars", chars)
+                .inc("totalTypingSeconds", typingSeconds);
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(userId)), update, User.class);
+    }
+}
@@ -0,0 +1,9 @@
+package com.typeroo.api.security;
+
+public class HashingSaturatedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public HashingSaturatedException() {
+        super("Password hashing queue is full");
+    }
+}
@@ -0,0 +1,106 @@
+package com.typeroo.api.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Runs BCrypt work on its own small pool so sign-in bursts cannot tie up the
+ * Tomcat threads that serve cheap reads. The queue is bounded; once it is
+ * full, new work is rejected immediately with {@link HashingSaturatedException}.
+ * Only the hash itself runs here: callers continue on {@link #continuations()}
+ * so database writes and token issuing never hold a hashing thread.
+ */
+@Service
+public class PasswordHashingService {
+    @Autowired
+    PasswordEncoder encoder;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    // Spring's async request executor, which also completes the controllers' futures
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    Executor continuations;
+
+    @Value("${app.hashing.threads:0}")
+    private int threads;
+
+    @Value("${app.hashing.queueCapacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    // Checked for unknown usernames, so they take as long as a wrong password
+    private String unknownUserHash;
+
+    @PostConstruct
+    void init() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "password-hashing");
+        unknownUserHash = encoder.encode("unknown-user");
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * @param encodedPassword {@code null} for an unknown user; always completes false
+     */
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null)
+            return submit(() -> {
+                encoder.matches(rawPassword, unknownUserHash);
+                return false;
+            });
+        return submit(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * The executor to continue on once a hash completes, via
+     * {@code thenApplyAsync(..., continuations())}.
+     */
+    public Executor continuations() {
+        return continuations;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            throw new HashingSaturatedException();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,83 @@
+package com.typeroo.api.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Bounded cache of already-verified claims, keyed by a SHA-256 digest of the
+ * token so raw tokens are never held in memory. Entries never outlive the
+ * token's own expiry.
+ */
+class JwtClaimsCache {
+    private final int maxSize;
+    private final long ttlMs;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    JwtClaimsCache(int maxSize, long ttlMs) {
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+    }
+
+    Claims get(String digest) {
+        Entry entry = entries.get(digest);
+        if (entry == null)
+            return null;
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(digest, entry);
+            return null;
+        }
+        return entry.claims;
+    }
+
+    void put(String digest, Claims claims) {
+        if (maxSize <= 0)
+            return;
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMs;
+        if (claims.getExpiration() != null)
+            expiresAt = Math.min(expiresAt, claims.getExpiration().getTime());
+        if (entries.size() >= maxSize)
+            evict(now);
+        entries.put(digest, new Entry(claims, expiresAt));
+    }
+
+    void invalidateAll() {
+        entries.clear();
+    }
+
+    // Drops expired entries first, then arbitrary ones until there is room again
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry {
+        final Claims claims;
+        final long expiresAt;
+
+        Entry(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -2,11 +2,19 @@ package com.typeroo.api.security.jwt;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import com.typeroo.api.security.service.UserDetailsImpl;
@@ -14,51 +22,127 @@ import com.typeroo.api.security.service.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLES = "roles";
+    private static final String CLAIM_EPOCH = "epoch";
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @Value("${app.jwtSecret}")
     private String jwtSecret;
 
     @Value("${app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwtCacheSize:10000}")
+    private int jwtCacheSize;
+
+    @Value("${app.jwtCacheTtlMs:300000}")
+    private long jwtCacheTtlMs;
+
+    // Decoded once; the key and parser are immutable and safe to share
+    private Key key;
+    private JwtParser parser;
+    private JwtClaimsCache claimsCache;
+    private Timer parseTimer;
+
+    @PostConstruct
+    void init() {
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        claimsCache = new JwtClaimsCache(jwtCacheSize, jwtCacheTtlMs);
+        parseTimer = Timer.builder("typeroo.jwt.parse").register(meterRegistry);
+    }
+
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
+        List<String> roles = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+
         return Jwts.builder()
                 .setSubject((userPrincipal.getUsername()))
+                .claim(CLAIM_USER_ID, userPrincipal.getId())
+                .claim(CLAIM_ROLES, roles)
+                .claim(CLAIM_EPOCH, userPrincipal.getTokenEpoch())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
-    }
-
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
-    }
+    /**
+     * Verifies the token and returns its claims in a single parse, or null if
+     * the token is invalid. Verified claims are cached until the token expires.
+     */
+    public Claims parseClaims(String token) {
+        String digest = JwtClaimsCache.digest(token);
+        Claims cached = claimsCache.get(digest);
+        if (cached != null)
+            return cached;
 
-    public boolean validateJwtToken(String authToken) {
+        long start = System.nanoTime();
+        String failure;
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            claimsCache.put(digest, claims);
+            return claims;
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
+            failure = "malformed";
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
+            failure = "expired";
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+            failure = "unsupported";
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+            failure = "empty";
+        } catch (JwtException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
+            failure = "signature";
+        } finally {
+            parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
 
-        return false;
+        meterRegistry.counter("typeroo.auth.failures", "reason", failure).increment();
+        return null;
+    }
+
+    /**
+     * Rebuilds the principal from the token alone. Returns null for tokens
+     * issued before user id and roles were embedded in them.
+     */
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        String id = claims.get(CLAIM_USER_ID, String.class);
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        if (id == null || roles == null)
+            return null;
+
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority(role.toString()))
+                .collect(Collectors.toList());
+        Number epoch = claims.get(CLAIM_EPOCH, Number.class);
+
+        return new UserDetailsImpl(id, claims.getSubject(), null, null, null,
+                epoch == null ? 0 : epoch.longValue(), authorities);
+    }
+
+    public String getUserNameFromJwtToken(String token) {
+        return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken) != null;
     }
 }
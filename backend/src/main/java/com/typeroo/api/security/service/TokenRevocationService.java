@@ -0,0 +1,95 @@
+package com.typeroo.api.security.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.typeroo.api.models.AccountDeletion;
+import com.typeroo.api.models.User;
+
+/**
+ * Tracks the minimum token epoch still accepted for each user whose tokens
+ * have ever been revoked. Only those users are kept, so the map stays small
+ * and request authentication never has to read the user document.
+ */
+@Service
+public class TokenRevocationService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // Epoch given to deleted accounts so none of their tokens are accepted again
+    public static final long REVOKED_FOREVER = Long.MAX_VALUE;
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    private final Map<String, Long> minEpochByUser = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime lastRefresh;
+
+    public boolean isRevoked(String userId, long tokenEpoch) {
+        Long minEpoch = minEpochByUser.get(userId);
+        return minEpoch != null && tokenEpoch < minEpoch;
+    }
+
+    public void revoke(String userId, long minEpoch) {
+        minEpochByUser.merge(userId, minEpoch, Math::max);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refreshSince(null);
+        loadPurgedAccounts();
+    }
+
+    /**
+     * Accounts whose user document has been purged are only revoked by their
+     * {@code account_deletions} row, kept until their last token expires.
+     */
+    private void loadPurgedAccounts() {
+        Query query = new Query(Criteria.where("revokeUntil").gt(LocalDateTime.now()));
+        query.fields().include("_id");
+        try {
+            for (AccountDeletion deletion : mongoTemplate.find(query, AccountDeletion.class)) {
+                revoke(deletion.getUserId(), REVOKED_FOREVER);
+            }
+        } catch (Exception e) {
+            logger.error("Cannot load revocations of purged accounts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Picks up revocations made by other instances since the last refresh.
+     */
+    @Scheduled(fixedDelayString = "${app.jwtRevocationRefreshMs:30000}")
+    public void refresh() {
+        if (lastRefresh != null)
+            refreshSince(lastRefresh.minusSeconds(5));
+    }
+
+    private void refreshSince(LocalDateTime since) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Query query = new Query(since == null
+                ? Criteria.where("tokensRevokedAt").exists(true)
+                : Criteria.where("tokensRevokedAt").gt(since));
+        query.fields().include("tokenEpoch");
+        try {
+            for (User user : mongoTemplate.find(query, User.class)) {
+                revoke(user.getId(), user.getTokenEpoch());
+            }
+            lastRefresh = startedAt;
+        } catch (Exception e) {
+            logger.error("Cannot refresh token revocations: {}", e.getMessage());
+        }
+    }
+}
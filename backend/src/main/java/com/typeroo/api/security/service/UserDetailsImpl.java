@@ -23,6 +23,9 @@ public class UserDetailsImpl implements UserDetails {
 
     private String themePreference;
 
+    @JsonIgnore
+    private long tokenEpoch;
+
     @JsonIgnore
     private String password;
 
@@ -38,6 +41,12 @@ public class UserDetailsImpl implements UserDetails {
         this.authorities = authorities;
     }
 
+    public UserDetailsImpl(String id, String username, String email, String password, String themePreference,
+            long tokenEpoch, Collection<? extends GrantedAuthority> authorities) {
+        this(id, username, email, password, themePreference, authorities);
+        this.tokenEpoch = tokenEpoch;
+    }
+
     public static UserDetailsImpl build(User user) {
         List<GrantedAuthority> authorities = user.getRoles().stream()
                 .map(role -> new SimpleGrantedAuthority(role.name()))
@@ -49,6 +58,7 @@ public class UserDetailsImpl implements UserDetails {
                 user.getEmail(),
                 user.getPassword(),
                 user.getThemePreference(),
+                user.getTokenEpoch(),
                 authorities);
     }
 
@@ -69,6 +79,10 @@ public class UserDetailsImpl implements UserDetails {
         return themePreference;
     }
 
+    public long getTokenEpoch() {
+        return tokenEpoch;
+    }
+
     @Override
     public String getPassword() {
         return password;
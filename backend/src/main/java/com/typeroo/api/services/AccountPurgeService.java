@@ -0,0 +1,280 @@
+package com.typeroo.api.services;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.typeroo.api.models.AccountDeletion;
+import com.typeroo.api.models.CustomText;
+import com.typeroo.api.models.PersonalBest;
+import com.typeroo.api.models.ProgressBackfill;
+import com.typeroo.api.models.ProgressRollup;
+import com.typeroo.api.models.TestResult;
+import com.typeroo.api.models.User;
+import com.typeroo.api.security.service.TokenRevocationService;
+import com.typeroo.api.storage.AvatarStorageService;
+
+/**
+ * Deletes accounts in two steps. The account is tombstoned at once: its
+ * tokens are revoked, it can no longer sign in and public lookups skip it.
+ * Its data is then purged in the background, one bounded batch per tick
+ * across all nodes, so a large history never turns into one long delete.
+ * Progress lives in {@code account_deletions}, so a purge interrupted by a
+ * restart picks up where it stopped. A finished purge keeps its row until
+ * the user's last token has expired, so revocation survives the user
+ * document being gone. Every node drops deleted users from its own
+ * in-memory leaderboards, search index and catalog on its next sync.
+ */
+@Service
+public class AccountPurgeService {
+    private static final Logger logger = LoggerFactory.getLogger(AccountPurgeService.class);
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    AvatarStorageService avatarStorageService;
+
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    UsernameSearchIndex usernameSearchIndex;
+
+    @Autowired
+    LeaderboardService leaderboardService;
+
+    @Autowired
+    CustomTextCatalog customTextCatalog;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.purge.batchSize:500}")
+    private int batchSize;
+
+    @Value("${app.purge.leaseMs:60000}")
+    private long leaseMs;
+
+    @Value("${app.jwtExpirationMs}")
+    private long jwtExpirationMs;
+
+    @Value("${app.purge.syncIntervalMs:10000}")
+    private long syncIntervalMs;
+
+    // Deletions this node has already dropped from its caches
+    private final Set<String> synced = ConcurrentHashMap.newKeySet();
+
+    private volatile LocalDateTime lastSync;
+
+    public void markDeleted(String userId, String username) {
+        LocalDateTime now = LocalDateTime.now();
+        // Recorded before the tombstone, so a crash in between still ends in a full purge
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(userId)), new Update()
+                .setOnInsert("username", username)
+                .setOnInsert("stage", AccountDeletion.Stage.TEST_RESULTS)
+                .setOnInsert("purged", 0L)
+                .setOnInsert("requestedAt", now), AccountDeletion.class);
+
+        // Other nodes pick up the revocation on their next refresh
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(userId)), new Update()
+                .set("deletedAt", now)
+                .set("tokenEpoch", TokenRevocationService.REVOKED_FOREVER)
+                .set("tokensRevokedAt", now), User.class);
+        tokenRevocationService.revoke(userId, TokenRevocationService.REVOKED_FOREVER);
+        forget(userId);
+        synced.add(userId);
+        eventPublisher.publishEvent(new ProfileChangedEvent(username));
+    }
+
+    /**
+     * Drops users deleted on any node from this node's in-memory state. Purges
+     * still in progress are applied on every run, since a startup rebuild may
+     * have read their data back in before it was purged; finished ones are
+     * picked up if they completed since the last run.
+     */
+    @Scheduled(fixedDelayString = "${app.purge.syncIntervalMs:10000}")
+    public void syncDeletions() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Criteria criteria = new Criteria();
+        if (lastSync != null) {
+            // revokeUntil is set when a purge finishes, one token lifetime ahead
+            LocalDateTime finishedSince = lastSync.minus(syncIntervalMs, ChronoUnit.MILLIS);
+            criteria.orOperator(Criteria.where("stage").ne(AccountDeletion.Stage.DONE),
+                    Criteria.where("revokeUntil").gt(finishedSince.plus(jwtExpirationMs, ChronoUnit.MILLIS)));
+        }
+        Query query = new Query(criteria);
+        query.fields().include("_id", "username");
+        List<AccountDeletion> deletions;
+        try {
+            deletions = mongoTemplate.find(query, AccountDeletion.class);
+        } catch (Exception e) {
+            logger.error("Cannot sync account deletions: {}", e.getMessage());
+            return;
+        }
+
+        Set<String> current = new HashSet<>();
+        for (AccountDeletion deletion : deletions) {
+            current.add(deletion.getUserId());
+            // Repeated while the purge runs: cheap, and undoes a rebuild that read the data back in
+            forget(deletion.getUserId());
+            if (synced.add(deletion.getUserId()))
+                eventPublisher.publishEvent(new ProfileChangedEvent(deletion.getUsername()));
+        }
+        synced.retainAll(current);
+        lastSync = startedAt;
+    }
+
+    /**
+     * Claims the oldest purge nobody holds a lease on and runs one batch of
+     * it. The fixed delay between runs is the throttle.
+     */
+    @Scheduled(fixedDelayString = "${app.purge.intervalMs:1000}")
+    public void purgeNextBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Query claimable = new Query(Criteria.where("stage").ne(AccountDeletion.Stage.DONE).orOperator(
+                Criteria.where("leaseUntil").exists(false),
+                Criteria.where("leaseUntil").lt(now)))
+                .with(Sort.by(Sort.Direction.ASC, "requestedAt"));
+        AccountDeletion deletion;
+        try {
+            deletion = mongoTemplate.findAndModify(claimable,
+                    new Update().set("leaseUntil", now.plus(leaseMs, ChronoUnit.MILLIS)),
+                    FindAndModifyOptions.options().returnNew(true), AccountDeletion.class);
+        } catch (Exception e) {
+            logger.error("Cannot claim an account purge: {}", e.getMessage());
+            return;
+        }
+        if (deletion == null)
+            return;
+
+        try {
+            purgeBatch(deletion);
+        } catch (Exception e) {
+            // The lease runs out and any node retries the same stage
+            logger.error("Purge of account {} failed in stage {}: {}", deletion.getUserId(), deletion.getStage(),
+                    e.getMessage());
+        }
+    }
+
+    private void purgeBatch(AccountDeletion deletion) {
+        String userId = deletion.getUserId();
+        int removed;
+        boolean stageDone;
+        switch (deletion.getStage()) {
+            case TEST_RESULTS:
+                removed = removeBatch(TestResult.class, userId).size();
+                stageDone = removed < batchSize;
+                break;
+            case CUSTOM_TEXTS:
+                List<Object> textIds = removeBatch(CustomText.class, userId);
+                for (Object id : textIds)
+                    customTextCatalog.remove(id.toString());
+                removed = textIds.size();
+                stageDone = removed < batchSize;
+                break;
+            case PERSONAL_DATA:
+                removed = removeBatch(ProgressRollup.class, userId).size();
+                stageDone = removed < batchSize;
+                if (stageDone) {
+                    removed += mongoTemplate.remove(new Query(Criteria.where("_id").is(userId)), PersonalBest.class)
+                            .getDeletedCount();
+                    mongoTemplate.remove(new Query(Criteria.where("_id").is(userId)), ProgressBackfill.class);
+                }
+                break;
+            case AVATAR:
+                // Moved onto this row before it leaves the user, so a failed release is retried, not lost
+                Query user = new Query(Criteria.where("_id").is(userId));
+                user.fields().include("avatarKey");
+                User previous = mongoTemplate.findOne(user, User.class);
+                if (previous != null && previous.getAvatarKey() != null) {
+                    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(userId)),
+                            new Update().set("avatarKey", previous.getAvatarKey()), AccountDeletion.class);
+                    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(userId)),
+                            new Update().unset("avatarKey"), User.class);
+                }
+                // Taken off the row and released together, so a retried batch never releases twice
+                AccountDeletion pending = mongoTemplate.findAndModify(
+                        new Query(Criteria.where("_id").is(userId).and("avatarKey").exists(true)),
+                        new Update().unset("avatarKey"), AccountDeletion.class);
+                if (pending != null) {
+                    try {
+                        avatarStorageService.release(pending.getAvatarKey());
+                    } catch (RuntimeException e) {
+                        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(userId)),
+                                new Update().set("avatarKey", pending.getAvatarKey()), AccountDeletion.class);
+                        throw e;
+                    }
+                }
+                removed = 0;
+                stageDone = true;
+                break;
+            case ACCOUNT:
+                mongoTemplate.remove(new Query(Criteria.where("_id").is(userId)), User.class);
+                // The user's tokensRevokedAt is gone with it; this row now keeps the tokens revoked
+                LocalDateTime now = LocalDateTime.now();
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(userId)), new Update()
+                        .set("stage", AccountDeletion.Stage.DONE)
+                        .set("revokeUntil", now.plus(jwtExpirationMs, ChronoUnit.MILLIS))
+                        .unset("leaseUntil"), AccountDeletion.class);
+                forget(userId);
+                eventPublisher.publishEvent(new ProfileChangedEvent(deletion.getUsername()));
+                logger.info("Purged account {} ({} documents) requested at {}", userId, deletion.getPurged() + 1,
+                        deletion.getRequestedAt());
+                return;
+            default: // DONE, never claimed
+                return;
+        }
+
+        Update progress = new Update().inc("purged", removed).set("leaseUntil", LocalDateTime.now());
+        if (stageDone)
+            progress.set("stage", AccountDeletion.Stage.values()[deletion.getStage().ordinal() + 1]);
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(userId).and("stage").is(deletion.getStage())),
+                progress, AccountDeletion.class);
+    }
+
+    /**
+     * Deletes up to one batch of the user's documents, selected by id first
+     * so each delete is bounded and served by the userId index.
+     *
+     * @return the ids deleted
+     */
+    private List<Object> removeBatch(Class<?> entity, String userId) {
+        String collection = mongoTemplate.getCollectionName(entity);
+        Query query = new Query(Criteria.where("userId").is(userId)).limit(batchSize);
+        query.fields().include("_id");
+
+        List<Object> ids = new ArrayList<>();
+        for (Document document : mongoTemplate.find(query, Document.class, collection))
+            ids.add(document.get("_id"));
+        if (!ids.isEmpty())
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), collection);
+        return ids;
+    }
+
+    // In-memory state on this node; other nodes drop it in syncDeletions
+    private void forget(String userId) {
+        usernameSearchIndex.remove(userId);
+        leaderboardService.remove(userId);
+        customTextCatalog.removeUser(userId);
+    }
+}
@@ -0,0 +1,58 @@
+package com.typeroo.api.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for catalog pages: the catalog version, and the
+ * sort score and id of the last entry returned, base64url-encoded. Browse
+ * pages sort by creation time, which never changes, so they continue strictly
+ * after that position even if texts are added or removed in between. Keyword
+ * pages sort by BM25 score, which shifts whenever the index changes, so the
+ * catalog rejects a keyword cursor issued under an older version.
+ */
+public class CatalogCursor {
+    private final long version;
+    private final double score;
+    private final String id;
+
+    public CatalogCursor(long version, double score, String id) {
+        this.version = version;
+        this.score = score;
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = version + "|" + Double.toString(score) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static CatalogCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int first = raw.indexOf('|');
+        int second = first < 0 ? -1 : raw.indexOf('|', first + 1);
+        if (second < 0)
+            throw new IllegalArgumentException("Malformed cursor");
+        try {
+            return new CatalogCursor(Long.parseLong(raw.substring(0, first)),
+                    Double.parseDouble(raw.substring(first + 1, second)), raw.substring(second + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
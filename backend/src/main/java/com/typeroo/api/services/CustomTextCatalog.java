@@ -0,0 +1,382 @@
+package com.typeroo.api.services;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.typeroo.api.models.CustomText;
+import com.typeroo.api.payload.response.CatalogEntryResponse;
+import com.typeroo.api.payload.response.CatalogSearchResponse;
+
+/**
+ * In-memory inverted index over public custom texts. Keyword queries are
+ * ranked with BM25 over term postings; without a query the catalog is browsed
+ * newest first from a creation-ordered map, so a page costs its own size plus
+ * the entries the facet filters skip, not a sort of every public text. Kept
+ * current by the add and delete endpoints, and rebuilt from Mongo on startup.
+ */
+@Service
+public class CustomTextCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(CustomTextCatalog.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_QUERY_TERMS = 8;
+
+    // Highest score first, ties broken by id so the order is total and cursors are stable
+    private static final Comparator<Scored> ORDER = Comparator
+            .comparingDouble((Scored s) -> -s.score)
+            .thenComparing(s -> s.text.id);
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    CustomTextService customTextService;
+
+    @Value("${app.catalog.rebuildBatchSize:500}")
+    private int rebuildBatchSize;
+
+    private final Map<String, IndexedText> texts = new ConcurrentHashMap<>();
+    // term -> (text id -> occurrences of the term in that text)
+    private final Map<String, Map<String, Integer>> postings = new ConcurrentHashMap<>();
+    // owner id -> ids of their indexed texts, so a deleted account is dropped without a scan
+    private final Map<String, Set<String>> idsByUser = new ConcurrentHashMap<>();
+    private volatile long totalTerms;
+    // Newest first, keyed like browse cursors
+    private final NavigableMap<BrowseKey, IndexedText> newestFirst = new ConcurrentSkipListMap<>();
+    // Facet counts over the whole catalog, for browsing; guarded by this
+    private final Map<TextLength, Integer> lengthTotals = new EnumMap<>(TextLength.class);
+    private final Map<TextDifficulty, Integer> difficultyTotals = new EnumMap<>(TextDifficulty.class);
+    // Bumped on every change; keyword cursors from an older version are stale
+    private volatile long version;
+
+    /** Indexes the text if it is public; a no-op otherwise. */
+    public void put(CustomText text, String content) {
+        if (!text.isPublic())
+            return;
+        Map<String, Integer> frequencies = termFrequencies(content);
+        int terms = 0;
+        for (int count : frequencies.values())
+            terms += count;
+        IndexedText indexed = new IndexedText(text.getId(), text.getUserId(), text.getPreview(), text.getLength(),
+                text.getWordCount(), TextDifficulty.of(content), text.getCreatedAt(),
+                frequencies.keySet().toArray(new String[0]), terms);
+
+        synchronized (this) {
+            remove(text.getId());
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new ConcurrentHashMap<>())
+                        .put(indexed.id, entry.getValue());
+            }
+            texts.put(indexed.id, indexed);
+            if (indexed.userId != null)
+                idsByUser.computeIfAbsent(indexed.userId, u -> ConcurrentHashMap.newKeySet()).add(indexed.id);
+            newestFirst.put(indexed.browseKey(), indexed);
+            lengthTotals.merge(indexed.lengthFacet, 1, Integer::sum);
+            difficultyTotals.merge(indexed.difficulty, 1, Integer::sum);
+            totalTerms += terms;
+            version++;
+        }
+    }
+
+    public synchronized void remove(String id) {
+        IndexedText previous = texts.remove(id);
+        if (previous == null)
+            return;
+        for (String term : previous.terms) {
+            Map<String, Integer> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty())
+                    postings.remove(term);
+            }
+        }
+        if (previous.userId != null) {
+            Set<String> owned = idsByUser.get(previous.userId);
+            if (owned != null) {
+                owned.remove(id);
+                if (owned.isEmpty())
+                    idsByUser.remove(previous.userId);
+            }
+        }
+        newestFirst.remove(previous.browseKey());
+        lengthTotals.computeIfPresent(previous.lengthFacet, (facet, count) -> count > 1 ? count - 1 : null);
+        difficultyTotals.computeIfPresent(previous.difficulty, (facet, count) -> count > 1 ? count - 1 : null);
+        totalTerms -= previous.termCount;
+        version++;
+    }
+
+    /** Drops every text the user owns, e.g. once their account is deleted. */
+    public synchronized void removeUser(String userId) {
+        Set<String> owned = idsByUser.get(userId);
+        if (owned == null)
+            return;
+        for (String id : List.copyOf(owned))
+            remove(id);
+    }
+
+    /**
+     * @param query      keywords, any of which may match; blank to browse
+     * @param length     length facet filter, or {@code null}
+     * @param difficulty difficulty facet filter, or {@code null}
+     * @param after      position to continue from, or {@code null} for the first page
+     * @throws StaleCatalogCursorException if a keyword cursor predates a change to the catalog
+     */
+    public CatalogSearchResponse search(String query, TextLength length, TextDifficulty difficulty,
+            CatalogCursor after, int size) {
+        long current = version;
+        List<String> terms = query == null ? List.of() : queryTerms(query);
+        if (terms.isEmpty())
+            return browse(length, difficulty, after, size, current);
+        if (after != null && after.getVersion() != current)
+            throw new StaleCatalogCursorException();
+
+        List<Scored> matches = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : bm25(terms).entrySet()) {
+            IndexedText text = texts.get(entry.getKey());
+            if (text != null)
+                matches.add(new Scored(text, entry.getValue()));
+        }
+
+        Map<TextLength, Integer> lengthCounts = new EnumMap<>(TextLength.class);
+        Map<TextDifficulty, Integer> difficultyCounts = new EnumMap<>(TextDifficulty.class);
+        List<Scored> filtered = new ArrayList<>();
+        for (Scored match : matches) {
+            lengthCounts.merge(match.text.lengthFacet, 1, Integer::sum);
+            difficultyCounts.merge(match.text.difficulty, 1, Integer::sum);
+            if ((length == null || match.text.lengthFacet == length)
+                    && (difficulty == null || match.text.difficulty == difficulty)
+                    && (after == null || isAfter(match, after)))
+                filtered.add(match);
+        }
+
+        filtered.sort(ORDER);
+        boolean hasNext = filtered.size() > size;
+        List<CatalogEntryResponse> page = new ArrayList<>(Math.min(size, filtered.size()));
+        for (Scored match : filtered.subList(0, Math.min(size, filtered.size()))) {
+            page.add(match.text.toResponse());
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            Scored last = filtered.get(size - 1);
+            nextCursor = new CatalogCursor(current, last.score, last.text.id).encode();
+        }
+        return new CatalogSearchResponse(page, nextCursor, hasNext, facets(lengthCounts, difficultyCounts));
+    }
+
+    // Walks the creation order from the cursor, touching only the entries up to the next page
+    private CatalogSearchResponse browse(TextLength length, TextDifficulty difficulty, CatalogCursor after,
+            int size, long current) {
+        Map<TextLength, Integer> lengthCounts;
+        Map<TextDifficulty, Integer> difficultyCounts;
+        synchronized (this) {
+            lengthCounts = new EnumMap<>(lengthTotals);
+            difficultyCounts = new EnumMap<>(difficultyTotals);
+        }
+
+        Iterable<IndexedText> from = after == null ? newestFirst.values()
+                : newestFirst.tailMap(new BrowseKey((long) after.getScore(), after.getId()), false).values();
+        List<IndexedText> page = new ArrayList<>(size);
+        boolean hasNext = false;
+        for (IndexedText text : from) {
+            if ((length != null && text.lengthFacet != length)
+                    || (difficulty != null && text.difficulty != difficulty))
+                continue;
+            if (page.size() == size) {
+                hasNext = true;
+                break;
+            }
+            page.add(text);
+        }
+
+        List<CatalogEntryResponse> entries = new ArrayList<>(page.size());
+        for (IndexedText text : page)
+            entries.add(text.toResponse());
+        String nextCursor = null;
+        if (hasNext) {
+            IndexedText last = page.get(page.size() - 1);
+            nextCursor = new CatalogCursor(current, last.createdSecond, last.id).encode();
+        }
+        return new CatalogSearchResponse(entries, nextCursor, hasNext, facets(lengthCounts, difficultyCounts));
+    }
+
+    private static Map<String, Map<String, Integer>> facets(Map<TextLength, Integer> lengthCounts,
+            Map<TextDifficulty, Integer> difficultyCounts) {
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put("length", names(lengthCounts));
+        facets.put("difficulty", names(difficultyCounts));
+        return facets;
+    }
+
+    private static boolean isAfter(Scored match, CatalogCursor cursor) {
+        return match.score < cursor.getScore()
+                || (match.score == cursor.getScore() && match.text.id.compareTo(cursor.getId()) > 0);
+    }
+
+    private Map<String, Double> bm25(List<String> terms) {
+        int n = texts.size();
+        double averageLength = n == 0 ? 1 : Math.max(1.0, (double) totalTerms / n);
+        Map<String, Double> scores = new HashMap<>();
+        for (String term : terms) {
+            Map<String, Integer> ids = postings.get(term);
+            if (ids == null)
+                continue;
+            double idf = Math.log(1 + (n - ids.size() + 0.5) / (ids.size() + 0.5));
+            for (Map.Entry<String, Integer> posting : ids.entrySet()) {
+                IndexedText text = texts.get(posting.getKey());
+                if (text == null)
+                    continue;
+                double tf = posting.getValue();
+                double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * text.termCount / averageLength));
+                scores.merge(posting.getKey(), idf * norm, Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    private static List<String> queryTerms(String query) {
+        List<String> terms = new ArrayList<>(termFrequencies(query).keySet());
+        return terms.size() > MAX_QUERY_TERMS ? terms.subList(0, MAX_QUERY_TERMS) : terms;
+    }
+
+    // Lowercased runs of letters and digits
+    private static Map<String, Integer> termFrequencies(String content) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        String lower = content.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                frequencies.merge(lower.substring(start, i), 1, Integer::sum);
+                start = -1;
+            }
+        }
+        return frequencies;
+    }
+
+    private static <E extends Enum<E>> Map<String, Integer> names(Map<E, Integer> counts) {
+        Map<String, Integer> named = new LinkedHashMap<>();
+        counts.forEach((value, count) -> named.put(value.name().toLowerCase(Locale.ROOT), count));
+        return named;
+    }
+
+    /**
+     * Streams public texts from Mongo in batches. Searches are served from
+     * the partially built index while this runs.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Query query = new Query(Criteria.where("isPublic").is(true));
+        query.cursorBatchSize(rebuildBatchSize);
+
+        long count = 0;
+        try (Stream<CustomText> stream = mongoTemplate.stream(query, CustomText.class)) {
+            for (CustomText text : (Iterable<CustomText>) stream::iterator) {
+                String content = customTextService.getContent(text);
+                if (content == null)
+                    continue;
+                if (text.getPreview() == null)
+                    customTextService.summarize(text, content);
+                put(text, content);
+                count++;
+            }
+        } catch (Exception e) {
+            logger.error("Custom text catalog rebuild failed after {} texts: {}", count, e.getMessage());
+            return;
+        }
+        logger.info("Custom text catalog built from {} texts in {} ms", count, System.currentTimeMillis() - start);
+    }
+
+    private static class Scored {
+        final IndexedText text;
+        final double score;
+
+        Scored(IndexedText text, double score) {
+            this.text = text;
+            this.score = score;
+        }
+    }
+
+    private static class IndexedText {
+        final String id;
+        final String userId;
+        final String preview;
+        final int length;
+        final int wordCount;
+        final TextLength lengthFacet;
+        final TextDifficulty difficulty;
+        final LocalDateTime createdAt;
+        final long createdSecond;
+        final String[] terms;
+        final int termCount;
+
+        IndexedText(String id, String userId, String preview, int length, int wordCount, TextDifficulty difficulty,
+                LocalDateTime createdAt, String[] terms, int termCount) {
+            this.id = id;
+            this.userId = userId;
+            this.preview = preview;
+            this.length = length;
+            this.wordCount = wordCount;
+            this.lengthFacet = TextLength.of(wordCount);
+            this.difficulty = difficulty;
+            this.createdAt = createdAt != null ? createdAt : LocalDateTime.MIN;
+            this.createdSecond = this.createdAt.toEpochSecond(ZoneOffset.UTC);
+            this.terms = terms;
+            this.termCount = termCount;
+        }
+
+        BrowseKey browseKey() {
+            return new BrowseKey(createdSecond, id);
+        }
+
+        CatalogEntryResponse toResponse() {
+            return new CatalogEntryResponse(id, preview, length, wordCount,
+                    lengthFacet.name().toLowerCase(Locale.ROOT), difficulty.name().toLowerCase(Locale.ROOT),
+                    createdAt == LocalDateTime.MIN ? null : createdAt);
+        }
+    }
+
+    // Newest first, ties broken by id, matching the browse cursor's position
+    private static final class BrowseKey implements Comparable<BrowseKey> {
+        final long createdSecond;
+        final String id;
+
+        BrowseKey(long createdSecond, String id) {
+            this.createdSecond = createdSecond;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(BrowseKey other) {
+            int byTime = Long.compare(other.createdSecond, createdSecond);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.typeroo.api.services;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.typeroo.api.models.CustomText;
+import com.typeroo.api.payload.response.CustomTextSummary;
+import com.typeroo.api.repository.CustomTextRepository;
+
+/**
+ * Stores custom texts with precomputed summary fields, deflating long ones,
+ * so that listings read only metadata and content is inflated only when a
+ * single text is opened.
+ */
+@Service
+public class CustomTextService {
+    private static final int PREVIEW_LENGTH = 80;
+
+    @Autowired
+    CustomTextRepository customTextRepository;
+
+    @Value("${app.customTexts.compressThreshold:4096}")
+    private int compressThreshold;
+
+    public CustomText create(String userId, String content, boolean isPublic) {
+        CustomText text = new CustomText(userId, isPublic);
+        setContent(text, content);
+        return customTextRepository.save(text);
+    }
+
+    public List<CustomTextSummary> getSummaries(String userId) {
+        List<CustomTextSummary> summaries = customTextRepository.findByUserId(userId, CustomTextSummary.class);
+        if (summaries.stream().anyMatch(summary -> summary.getPreview() == null)) {
+            // Texts saved before summaries existed; migrated once, on their owner's first listing
+            backfill(userId);
+            summaries = customTextRepository.findByUserId(userId, CustomTextSummary.class);
+        }
+        return summaries;
+    }
+
+    public String getContent(CustomText text) {
+        if (text.getCompressedContent() == null)
+            return text.getContent();
+        return inflate(text.getCompressedContent());
+    }
+
+    private void backfill(String userId) {
+        for (CustomText text : customTextRepository.findByUserId(userId)) {
+            if (text.getPreview() == null) {
+                setContent(text, text.getContent() != null ? text.getContent() : "");
+                customTextRepository.save(text);
+            }
+        }
+    }
+
+    private void setContent(CustomText text, String content) {
+        summarize(text, content);
+        if (content.length() > compressThreshold) {
+            text.setCompressedContent(deflate(content));
+            text.setContent(null);
+        } else {
+            text.setContent(content);
+            text.setCompressedContent(null);
+        }
+    }
+
+    // Fills in the summary fields derived from the content
+    void summarize(CustomText text, String content) {
+        text.setPreview(content.length() > PREVIEW_LENGTH ? content.substring(0, PREVIEW_LENGTH) : content);
+        text.setLength(content.length());
+        String trimmed = content.strip();
+        text.setWordCount(trimmed.isEmpty() ? 0 : trimmed.split("\\s+").length);
+        text.setContentHash(hash(content));
+    }
+
+    private static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] deflate(String content) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(content.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IllegalStateException("Truncated custom text content");
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt custom text content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
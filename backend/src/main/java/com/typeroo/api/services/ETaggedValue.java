@@ -0,0 +1,23 @@
+package com.typeroo.api.services;
+
+/**
+ * A cached response body together with the strong ETag of its JSON form,
+ * computed once when the value is loaded.
+ */
+public class ETaggedValue<T> {
+    private final T value;
+    private final String eTag;
+
+    public ETaggedValue(T value, String eTag) {
+        this.value = value;
+        this.eTag = eTag;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+}
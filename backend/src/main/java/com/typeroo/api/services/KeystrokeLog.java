@@ -0,0 +1,49 @@
+package com.typeroo.api.services;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Compact binary keystroke log sent along with a test result. After a version
+ * byte, each event is two unsigned LEB128 varints: milliseconds since the
+ * previous event (since the test started, for the first) and the typed code
+ * point, with {@link #BACKSPACE} and {@link #SPACE} for deleting a character
+ * and submitting a word. Deleting several characters at once (a selection,
+ * Ctrl+Backspace) is one BACKSPACE per character, all but the first with a
+ * delta of zero. Typical events take two bytes, so a one-minute test fits in
+ * one to two kilobytes.
+ */
+public final class KeystrokeLog {
+    public static final int VERSION = 1;
+    public static final int BACKSPACE = 0x08;
+    public static final int SPACE = 0x20;
+
+    private KeystrokeLog() {
+    }
+
+    /** Builds logs in the wire format; used by the benchmarks and tooling. */
+    public static class Writer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        public Writer() {
+            out.write(VERSION);
+        }
+
+        public Writer event(int deltaMs, int codePoint) {
+            writeVarint(deltaMs);
+            writeVarint(codePoint);
+            return this;
+        }
+
+        public byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7f) != 0) {
+                out.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+    }
+}
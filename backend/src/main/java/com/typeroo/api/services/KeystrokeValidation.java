@@ -0,0 +1,75 @@
+package com.typeroo.api.services;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Outcome of replaying a keystroke log: the metrics recomputed from it and
+ * anything that makes the result implausible.
+ */
+public class KeystrokeValidation {
+    public enum Flag {
+        MALFORMED,
+        LONGER_THAN_DURATION,
+        IMPOSSIBLE_INTERVALS,
+        ROBOTIC_TIMING,
+        IMPOSSIBLE_SPEED,
+        COUNT_MISMATCH
+    }
+
+    private final Set<Flag> flags = EnumSet.noneOf(Flag.class);
+    private int correctChars;
+    private int incorrectChars;
+    private double wpm;
+    private double rawWpm;
+    private double accuracy;
+    private long elapsedMs;
+
+    public boolean isValid() {
+        return flags.isEmpty();
+    }
+
+    public Set<Flag> getFlags() {
+        return flags;
+    }
+
+    void flag(Flag flag) {
+        flags.add(flag);
+    }
+
+    public int getCorrectChars() {
+        return correctChars;
+    }
+
+    public int getIncorrectChars() {
+        return incorrectChars;
+    }
+
+    public double getWpm() {
+        return wpm;
+    }
+
+    public double getRawWpm() {
+        return rawWpm;
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    void setMetrics(int correctChars, int incorrectChars, int durationSeconds, long elapsedMs) {
+        int typed = correctChars + incorrectChars;
+        double minutes = Math.max(durationSeconds, 1) / 60.0;
+        this.correctChars = correctChars;
+        this.incorrectChars = incorrectChars;
+        // Same rounding as the client
+        this.wpm = Math.round((correctChars / 5.0) / minutes);
+        this.rawWpm = Math.round((typed / 5.0) / minutes);
+        this.accuracy = typed > 0 ? Math.round(correctChars * 100.0 / typed) : 0;
+        this.elapsedMs = elapsedMs;
+    }
+}
@@ -0,0 +1,166 @@
+package com.typeroo.api.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.typeroo.api.services.KeystrokeValidation.Flag;
+
+/**
+ * Replays a {@link KeystrokeLog} in one pass over its bytes, tracking only
+ * the cursor position in the target text and running timing statistics, so
+ * validation allocates nothing per keystroke and can run inline on every save.
+ * Counting mirrors the typing test: each typed character is correct if it
+ * matches the target at the cursor, backspace moves the cursor back without
+ * uncounting, and space submits a non-empty word.
+ */
+@Service
+public class KeystrokeValidator {
+    @Value("${app.keystrokes.maxLogBytes:65536}")
+    private int maxLogBytes;
+
+    // Intervals shorter than this are only plausible for the odd key rollover
+    @Value("${app.keystrokes.minIntervalMs:12}")
+    private int minIntervalMs;
+
+    @Value("${app.keystrokes.maxFastIntervalRatio:0.25}")
+    private double maxFastIntervalRatio;
+
+    // Humans are never this regular: coefficient of variation of the intervals
+    @Value("${app.keystrokes.minIntervalVariation:0.15}")
+    private double minIntervalVariation;
+
+    @Value("${app.keystrokes.maxRawWpm:350}")
+    private double maxRawWpm;
+
+    @Value("${app.keystrokes.durationSlackMs:1500}")
+    private long durationSlackMs;
+
+    /**
+     * @param log             the encoded log
+     * @param target          the text the user was given, or {@code null} if the
+     *                        server cannot reproduce it (custom texts, or no
+     *                        seed sent). Without it only the log's format,
+     *                        timing, raw speed and total count are checked;
+     *                        the correct/incorrect split is the client's.
+     * @param durationSeconds the test duration the client reports
+     */
+    public KeystrokeValidation validate(byte[] log, String target, int durationSeconds, int claimedCorrect,
+            int claimedIncorrect) {
+        KeystrokeValidation validation = new KeystrokeValidation();
+        if (log.length == 0 || log.length > maxLogBytes || log[0] != KeystrokeLog.VERSION) {
+            validation.flag(Flag.MALFORMED);
+            return validation;
+        }
+
+        int targetLength = target == null ? 0 : target.length();
+        int wordStart = 0;
+        int wordEnd = target == null ? 0 : wordEnd(target, 0);
+        int charIndex = 0;
+
+        int typed = 0;
+        int correct = 0;
+        long elapsed = 0;
+        int events = 0;
+        int fastIntervals = 0;
+        boolean lastWasBackspace = false;
+        // Welford's running mean and variance of the inter-key intervals
+        double mean = 0;
+        double m2 = 0;
+
+        int pos = 1;
+        while (pos < log.length) {
+            // Two varints per event, decoded inline to avoid allocating a reader
+            int delta = 0;
+            int shift = 0;
+            while (true) {
+                if (pos >= log.length || shift > 28) {
+                    validation.flag(Flag.MALFORMED);
+                    return validation;
+                }
+                byte b = log[pos++];
+                delta |= (b & 0x7f) << shift;
+                if (b >= 0)
+                    break;
+                shift += 7;
+            }
+            int code = 0;
+            shift = 0;
+            while (true) {
+                if (pos >= log.length || shift > 28) {
+                    validation.flag(Flag.MALFORMED);
+                    return validation;
+                }
+                byte b = log[pos++];
+                code |= (b & 0x7f) << shift;
+                if (b >= 0)
+                    break;
+                shift += 7;
+            }
+            if (delta < 0 || code < 0) {
+                validation.flag(Flag.MALFORMED);
+                return validation;
+            }
+
+            elapsed += delta;
+            boolean backspace = code == KeystrokeLog.BACKSPACE;
+            // Further characters of a multi-character delete are the same keystroke, not a new interval
+            if (!(backspace && lastWasBackspace && delta == 0)) {
+                if (events > 0) {
+                    int n = events;
+                    double d = delta - mean;
+                    mean += d / n;
+                    m2 += d * (delta - mean);
+                    if (delta < minIntervalMs)
+                        fastIntervals++;
+                }
+                events++;
+            }
+            lastWasBackspace = backspace;
+
+            if (backspace) {
+                if (charIndex > 0)
+                    charIndex--;
+            } else if (code == KeystrokeLog.SPACE) {
+                if (charIndex > 0) {
+                    charIndex = 0;
+                    if (target != null && wordEnd < targetLength) {
+                        wordStart = wordEnd + 1;
+                        wordEnd = wordEnd(target, wordStart);
+                    } else {
+                        wordStart = wordEnd = targetLength;
+                    }
+                }
+            } else {
+                typed++;
+                if (target != null && charIndex < wordEnd - wordStart
+                        && target.charAt(wordStart + charIndex) == code)
+                    correct++;
+                charIndex++;
+            }
+        }
+
+        int intervals = events - 1;
+        if (elapsed > durationSeconds * 1000L + durationSlackMs)
+            validation.flag(Flag.LONGER_THAN_DURATION);
+        if (intervals >= 20 && fastIntervals > intervals * maxFastIntervalRatio)
+            validation.flag(Flag.IMPOSSIBLE_INTERVALS);
+        if (intervals >= 50 && mean > 0 && Math.sqrt(m2 / intervals) / mean < minIntervalVariation)
+            validation.flag(Flag.ROBOTIC_TIMING);
+        if (Math.abs(claimedCorrect + claimedIncorrect - typed) > Math.max(2, typed / 50))
+            validation.flag(Flag.COUNT_MISMATCH);
+
+        if (target == null) {
+            // Correctness cannot be replayed, so wpm and accuracy rest on the client's split of what was typed
+            correct = Math.min(Math.max(claimedCorrect, 0), typed);
+        }
+        validation.setMetrics(correct, typed - correct, durationSeconds, elapsed);
+        if (validation.getRawWpm() > maxRawWpm)
+            validation.flag(Flag.IMPOSSIBLE_SPEED);
+        return validation;
+    }
+
+    private static int wordEnd(String target, int from) {
+        int end = target.indexOf(' ', from);
+        return end < 0 ? target.length() : end;
+    }
+}
@@ -0,0 +1,86 @@
+package com.typeroo.api.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Top-K board holding each user's best entry for one duration and period.
+ * Reads never lock; writers serialize on the board so the ranking and the
+ * per-user index stay in step.
+ */
+class Leaderboard {
+    private final int capacity;
+    private final long period;
+
+    private final ConcurrentSkipListSet<LeaderboardEntry> ranking = new ConcurrentSkipListSet<>(LeaderboardEntry.ORDER);
+    private final Map<String, LeaderboardEntry> bestByUser = new ConcurrentHashMap<>();
+    private int size = 0;
+
+    Leaderboard(int capacity, long period) {
+        this.capacity = capacity;
+        this.period = period;
+    }
+
+    long getPeriod() {
+        return period;
+    }
+
+    synchronized void offer(LeaderboardEntry entry) {
+        LeaderboardEntry current = bestByUser.get(entry.getUserId());
+        if (current != null) {
+            if (LeaderboardEntry.ORDER.compare(entry, current) >= 0)
+                return;
+            ranking.remove(current);
+            size--;
+        } else if (size >= capacity) {
+            LeaderboardEntry last = ranking.last();
+            if (LeaderboardEntry.ORDER.compare(entry, last) >= 0)
+                return;
+            ranking.pollLast();
+            bestByUser.remove(last.getUserId());
+            size--;
+        }
+        ranking.add(entry);
+        bestByUser.put(entry.getUserId(), entry);
+        size++;
+    }
+
+    synchronized void remove(String userId) {
+        LeaderboardEntry current = bestByUser.remove(userId);
+        if (current != null) {
+            ranking.remove(current);
+            size--;
+        }
+    }
+
+    List<LeaderboardEntry> top(int limit) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.min(limit, capacity));
+        for (LeaderboardEntry entry : ranking) {
+            if (entries.size() >= limit)
+                break;
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    LeaderboardEntry get(String userId) {
+        return bestByUser.get(userId);
+    }
+
+    /** 1-based rank of the user's best entry, or -1 if they are not on the board. */
+    int rankOf(String userId) {
+        LeaderboardEntry entry = bestByUser.get(userId);
+        if (entry == null)
+            return -1;
+        int rank = 1;
+        for (LeaderboardEntry other : ranking) {
+            if (LeaderboardEntry.ORDER.compare(other, entry) >= 0)
+                break;
+            rank++;
+        }
+        return rank;
+    }
+}
@@ -0,0 +1,24 @@
+package com.typeroo.api.services;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LeaderboardEntry {
+    // Best first: highest wpm, then highest accuracy, then whoever got there first
+    static final Comparator<LeaderboardEntry> ORDER = Comparator
+            .comparingDouble(LeaderboardEntry::getWpm).reversed()
+            .thenComparing(Comparator.comparingDouble(LeaderboardEntry::getAccuracy).reversed())
+            .thenComparing(LeaderboardEntry::getTimestamp)
+            .thenComparing(LeaderboardEntry::getUserId);
+
+    private final String userId;
+    private final String username;
+    private final double wpm;
+    private final double accuracy;
+    private final LocalDateTime timestamp;
+}
@@ -0,0 +1,167 @@
+package com.typeroo.api.services;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.typeroo.api.models.TestResult;
+
+/**
+ * In-memory global leaderboards for the standard test durations. Fed by every
+ * saved result and rebuilt from {@code test_results} when the app starts, so
+ * reads never touch Mongo.
+ */
+@Service
+public class LeaderboardService {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Value("${app.leaderboard.capacity:1000}")
+    private int capacity;
+
+    @Value("${app.leaderboard.durations:10,30,60}")
+    private List<Integer> durations;
+
+    @Value("${app.leaderboard.rebuildBatchSize:1000}")
+    private int rebuildBatchSize;
+
+    private Map<Integer, Map<LeaderboardWindow, AtomicReference<Leaderboard>>> boards;
+
+    @PostConstruct
+    void init() {
+        Map<Integer, Map<LeaderboardWindow, AtomicReference<Leaderboard>>> byDuration = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int duration : durations) {
+            Map<LeaderboardWindow, AtomicReference<Leaderboard>> byWindow = new EnumMap<>(LeaderboardWindow.class);
+            for (LeaderboardWindow window : LeaderboardWindow.values()) {
+                byWindow.put(window, new AtomicReference<>(new Leaderboard(capacity, window.periodOf(now))));
+            }
+            byDuration.put(duration, byWindow);
+        }
+        boards = byDuration;
+    }
+
+    public boolean isTracked(int duration) {
+        return boards.containsKey(duration);
+    }
+
+    public void record(TestResult result) {
+        Map<LeaderboardWindow, AtomicReference<Leaderboard>> byWindow = boards.get(result.getDuration());
+        if (byWindow == null || result.getUserId() == null || result.getTimestamp() == null)
+            return;
+
+        LeaderboardEntry entry = new LeaderboardEntry(result.getUserId(), result.getUsername(), result.getWpm(),
+                result.getAccuracy(), result.getTimestamp());
+        LocalDateTime now = LocalDateTime.now();
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            long period = window.periodOf(now);
+            if (window.periodOf(result.getTimestamp()) != period)
+                continue;
+            offer(byWindow.get(window), period, entry);
+        }
+    }
+
+    /**
+     * Offers the entry to the board of its period. If the board is swapped
+     * while the offer runs, the entry is offered again to whichever board won,
+     * as long as that board is still for the same period.
+     */
+    private void offer(AtomicReference<Leaderboard> ref, long period, LeaderboardEntry entry) {
+        Leaderboard board = current(ref, period);
+        while (board.getPeriod() == period) {
+            board.offer(entry);
+            Leaderboard latest = ref.get();
+            if (latest == board)
+                return;
+            board = latest;
+        }
+    }
+
+    /** Drops the user from every board, e.g. once their account is deleted. */
+    public void remove(String userId) {
+        for (Map<LeaderboardWindow, AtomicReference<Leaderboard>> byWindow : boards.values()) {
+            for (AtomicReference<Leaderboard> ref : byWindow.values())
+                ref.get().remove(userId);
+        }
+    }
+
+    public List<LeaderboardEntry> top(int duration, LeaderboardWindow window, int limit) {
+        Leaderboard board = board(duration, window);
+        return board == null ? Collections.emptyList() : board.top(limit);
+    }
+
+    public LeaderboardEntry entryOf(int duration, LeaderboardWindow window, String userId) {
+        Leaderboard board = board(duration, window);
+        return board == null ? null : board.get(userId);
+    }
+
+    public int rankOf(int duration, LeaderboardWindow window, String userId) {
+        Leaderboard board = board(duration, window);
+        return board == null ? -1 : board.rankOf(userId);
+    }
+
+    private Leaderboard board(int duration, LeaderboardWindow window) {
+        Map<LeaderboardWindow, AtomicReference<Leaderboard>> byWindow = boards.get(duration);
+        if (byWindow == null)
+            return null;
+        return current(byWindow.get(window), window.periodOf(LocalDateTime.now()));
+    }
+
+    /**
+     * The board for {@code period}, or a later one if this caller's clock is
+     * behind another thread's at a rollover. Exactly one thread wins the swap;
+     * the losers pick up the winner's board.
+     */
+    private Leaderboard current(AtomicReference<Leaderboard> ref, long period) {
+        Leaderboard board = ref.get();
+        while (board.getPeriod() < period) {
+            Leaderboard next = new Leaderboard(capacity, period);
+            board = ref.compareAndSet(board, next) ? next : ref.get();
+        }
+        return board;
+    }
+
+    /**
+     * Streams the tracked durations out of Mongo with a cursor, so memory stays
+     * bounded by the batch size and the boards themselves.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Query query = new Query(Criteria.where("duration").in(durations));
+        query.fields().include("userId", "username", "wpm", "accuracy", "duration", "timestamp");
+        query.cursorBatchSize(rebuildBatchSize);
+
+        long count = 0;
+        try (Stream<TestResult> results = mongoTemplate.stream(query, TestResult.class)) {
+            for (TestResult result : (Iterable<TestResult>) results::iterator) {
+                record(result);
+                count++;
+            }
+        } catch (Exception e) {
+            logger.error("Leaderboard rebuild failed after {} results: {}", count, e.getMessage());
+            return;
+        }
+        logger.info("Leaderboards rebuilt from {} results in {} ms", count, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,30 @@
+package com.typeroo.api.services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+public enum LeaderboardWindow {
+    DAILY,
+    WEEKLY,
+    ALL_TIME;
+
+    /**
+     * Identifies the period a timestamp falls into. Boards only accept results
+     * from the current period and start over once it rolls.
+     */
+    long periodOf(LocalDateTime timestamp) {
+        switch (this) {
+            case DAILY:
+                return timestamp.toLocalDate().toEpochDay();
+            case WEEKLY:
+                return timestamp.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toEpochDay();
+            default:
+                return 0;
+        }
+    }
+
+    public static LeaderboardWindow fromParam(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
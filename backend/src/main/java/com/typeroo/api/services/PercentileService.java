@@ -0,0 +1,202 @@
+package com.typeroo.api.services;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PostConstruct;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.typeroo.api.models.PercentileSketch;
+import com.typeroo.api.models.TestResult;
+
+/**
+ * Global WPM percentiles per test duration. Each node records saves into a
+ * local {@link WpmHistogram} and periodically adds what it recorded to one
+ * shared document per duration, then reloads that document. Every node
+ * converges on the merged counts of all nodes within a sync interval.
+ */
+@Service
+public class PercentileService {
+    private static final Logger logger = LoggerFactory.getLogger(PercentileService.class);
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Value("${app.percentiles.durations:10,30,60}")
+    private List<Integer> durations;
+
+    @Value("${app.percentiles.seedLeaseMs:600000}")
+    private long seedLeaseMs;
+
+    private Map<Integer, WpmHistogram> histograms;
+
+    // Durations whose shared counts this node has seen seeded
+    private final Set<Integer> seeded = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    void init() {
+        Map<Integer, WpmHistogram> byDuration = new HashMap<>();
+        for (int duration : durations)
+            byDuration.put(duration, new WpmHistogram());
+        histograms = byDuration;
+    }
+
+    public boolean isTracked(int duration) {
+        return histograms.containsKey(duration);
+    }
+
+    public void record(TestResult result) {
+        WpmHistogram histogram = histograms.get(result.getDuration());
+        if (histogram != null)
+            histogram.record(result.getWpm());
+    }
+
+    /** @return {@code null} if the duration is not tracked */
+    public WpmHistogram histogram(int duration) {
+        return histograms.get(duration);
+    }
+
+    /**
+     * Adds what this node recorded to the shared counts and reloads them, for
+     * each duration on its own so one failure does not hold up the others.
+     * Once the app is ready, also seeds any duration not seeded yet.
+     */
+    @Scheduled(fixedDelayString = "${app.percentiles.syncIntervalMs:10000}")
+    public void sync() {
+        for (Map.Entry<Integer, WpmHistogram> entry : histograms.entrySet()) {
+            int duration = entry.getKey();
+            String id = String.valueOf(duration);
+            WpmHistogram histogram = entry.getValue();
+            long[] delta = histogram.drainPending();
+            try {
+                Update update = new Update();
+                boolean changed = false;
+                for (int i = 0; i < delta.length; i++) {
+                    if (delta[i] != 0) {
+                        update.inc("counts." + i, delta[i]);
+                        changed = true;
+                    }
+                }
+                if (changed)
+                    mongoTemplate.upsert(new Query(Criteria.where("_id").is(id)), update, PercentileSketch.class);
+            } catch (Exception e) {
+                histogram.restorePending(delta);
+                logger.warn("Cannot store percentile counts for duration {}: {}", id, e.getMessage());
+                continue;
+            }
+
+            try {
+                PercentileSketch shared = mongoTemplate.findById(id, PercentileSketch.class);
+                histogram.publish(shared != null ? shared.getCounts() : Map.of());
+                if (shared != null && shared.isSeeded())
+                    seeded.add(duration);
+            } catch (Exception e) {
+                logger.warn("Cannot load percentile counts for duration {}: {}", id, e.getMessage());
+                continue;
+            }
+
+            if (ready && !seeded.contains(duration))
+                seed(duration, id);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        ready = true;
+        sync();
+    }
+
+    /**
+     * Seeds the shared counts from {@code test_results} the first time any
+     * node starts with this service. The node that claims the seeding lease
+     * adds the counts and sets {@code seeded} in one update, so a node that
+     * fails or dies half way leaves the duration unseeded and the lease
+     * expires for a later sync to retry. Saves that land while it runs may be
+     * counted twice, which is negligible at the scale percentiles are read.
+     */
+    private void seed(int duration, String id) {
+        String claim = new ObjectId().toHexString();
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            // Either inserts the document or claims an existing unseeded one; never both for two nodes
+            Query claimable = new Query(Criteria.where("_id").is(id).and("seeded").ne(true)
+                    .orOperator(Criteria.where("seedingUntil").exists(false), Criteria.where("seedingUntil").lt(now)));
+            mongoTemplate.upsert(claimable, new Update()
+                    .set("seedClaim", claim)
+                    .set("seedingUntil", now.plus(seedLeaseMs, ChronoUnit.MILLIS)), PercentileSketch.class);
+        } catch (DuplicateKeyException e) {
+            // Seeded, or another node holds the lease; checked again on the next sync
+            return;
+        } catch (Exception e) {
+            logger.warn("Cannot claim percentile seeding for duration {}: {}", id, e.getMessage());
+            return;
+        }
+
+        try {
+            seedFromResults(duration, id, claim);
+        } catch (Exception e) {
+            logger.error("Seeding {}s percentiles failed, retrying once the lease expires: {}", duration,
+                    e.getMessage());
+        }
+    }
+
+    private void seedFromResults(int duration, String id, String claim) {
+        long start = System.currentTimeMillis();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("duration").is(duration)),
+                Aggregation.project().and(ArithmeticOperators.Floor.floorValueOf(
+                        ArithmeticOperators.Multiply.valueOf("wpm").multiplyBy(WpmHistogram.BUCKETS_PER_WPM)))
+                        .as("bucket"),
+                Aggregation.group("bucket").count().as("count"));
+
+        long[] counts = new long[WpmHistogram.BUCKETS];
+        long total = 0;
+        for (BucketCount bucket : mongoTemplate.aggregate(aggregation, TestResult.class, BucketCount.class)) {
+            counts[WpmHistogram.bucketOf(bucket.id / WpmHistogram.BUCKETS_PER_WPM)] += bucket.count;
+            total += bucket.count;
+        }
+
+        Update update = new Update().set("seeded", true).unset("seedClaim").unset("seedingUntil");
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0)
+                update.inc("counts." + i, counts[i]);
+        }
+        Query claimed = new Query(Criteria.where("_id").is(id).and("seedClaim").is(claim));
+        if (mongoTemplate.updateFirst(claimed, update, PercentileSketch.class).getMatchedCount() == 0) {
+            // The lease ran out and another node took over; its counts are the ones kept
+            logger.warn("Lost the lease on seeding {}s percentiles after {} ms", duration,
+                    System.currentTimeMillis() - start);
+            return;
+        }
+        logger.info("Seeded {}s percentiles from {} results in {} ms", duration, total,
+                System.currentTimeMillis() - start);
+    }
+
+    static class BucketCount {
+        double id;
+        long count;
+    }
+}
@@ -0,0 +1,90 @@
+package com.typeroo.api.services;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.typeroo.api.models.PersonalBest;
+import com.typeroo.api.models.TestResult;
+import com.typeroo.api.repository.PersonalBestRepository;
+
+/**
+ * Maintains one personal-best document per user so profile stats are a single
+ * point read instead of a sorted scan of the user's history per duration.
+ */
+@Service
+public class PersonalBestService {
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    PersonalBestRepository personalBestRepository;
+
+    public void record(TestResult result) {
+        recordBest(result.getUserId(), result.getDuration(),
+                new PersonalBest.Best(result.getWpm(), result.getAccuracy(), result.getTimestamp()));
+    }
+
+    /**
+     * Replaces the stored best for a duration only if the new wpm is strictly
+     * higher. The comparison happens inside the update filter, so concurrent
+     * saves can never overwrite a better score.
+     */
+    private void recordBest(String userId, int duration, PersonalBest.Best best) {
+        String field = "bests." + duration;
+        Query query = new Query(Criteria.where("_id").is(userId)
+                .orOperator(Criteria.where(field).exists(false), Criteria.where(field + ".wpm").lt(best.getWpm())));
+        try {
+            mongoTemplate.upsert(query, new Update().set(field, best), PersonalBest.class);
+        } catch (DuplicateKeyException e) {
+            // The document exists and already holds a better score for this duration
+        }
+    }
+
+    public PersonalBest getBests(String userId) {
+        Optional<PersonalBest> stored = personalBestRepository.findById(userId);
+        if (stored.isPresent() && stored.get().isBackfilled())
+            return stored.get();
+
+        backfill(userId);
+        return personalBestRepository.findById(userId).orElseGet(() -> new PersonalBest(userId));
+    }
+
+    /**
+     * Merges bests from results saved before personal-best records existed.
+     * Runs at most once per user; each merge is the same conditional max used
+     * on save, so it is safe to race with new results.
+     */
+    private void backfill(String userId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").is(userId)),
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, "duration").and(Sort.by(Sort.Direction.DESC, "wpm"))),
+                Aggregation.group("duration")
+                        .first("wpm").as("wpm")
+                        .first("accuracy").as("accuracy")
+                        .first("timestamp").as("timestamp"));
+
+        mongoTemplate.aggregate(aggregation, TestResult.class, BestByDuration.class)
+                .forEach(best -> recordBest(userId, best.id,
+                        new PersonalBest.Best(best.wpm, best.accuracy, best.timestamp)));
+
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(userId)), new Update().set("backfilled", true),
+                PersonalBest.class);
+    }
+
+    static class BestByDuration {
+        int id;
+        double wpm;
+        double accuracy;
+        LocalDateTime timestamp;
+    }
+}
@@ -0,0 +1,25 @@
+package com.typeroo.api.services;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Published whenever anything shown on a public profile changes: profile or
+ * settings edits, new test results, account deletion. Carries every username
+ * the change is visible under, including the old one after a rename.
+ */
+public class ProfileChangedEvent {
+    private final Set<String> usernames;
+
+    public ProfileChangedEvent(String... usernames) {
+        this(Set.copyOf(Arrays.asList(usernames)));
+    }
+
+    public ProfileChangedEvent(Set<String> usernames) {
+        this.usernames = usernames;
+    }
+
+    public Set<String> getUsernames() {
+        return usernames;
+    }
+}
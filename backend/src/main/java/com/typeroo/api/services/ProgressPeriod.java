@@ -0,0 +1,25 @@
+package com.typeroo.api.services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+public enum ProgressPeriod {
+    DAY,
+    WEEK;
+
+    /** First day of the bucket a date falls into; weeks start on Monday. */
+    public LocalDate bucketStart(LocalDate date) {
+        return this == WEEK ? date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : date;
+    }
+
+    public long bucketsBetween(LocalDate from, LocalDate to) {
+        long days = ChronoUnit.DAYS.between(bucketStart(from), to) + 1;
+        return this == WEEK ? (days + 6) / 7 : days;
+    }
+
+    public static ProgressPeriod fromParam(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,148 @@
+package com.typeroo.api.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.typeroo.api.models.ProgressBackfill;
+import com.typeroo.api.models.ProgressRollup;
+import com.typeroo.api.models.TestResult;
+import com.typeroo.api.payload.response.ProgressPointResponse;
+import com.typeroo.api.repository.ProgressRollupRepository;
+
+/**
+ * Maintains daily and weekly per-user totals as results are saved, so a
+ * progress chart over any range reads one small document per bucket instead
+ * of the user's whole history.
+ */
+@Service
+public class ProgressRollupService {
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    ProgressRollupRepository progressRollupRepository;
+
+    /**
+     * Adds the result to its day and week buckets in one unordered bulk write.
+     * Every change is an $inc or $max, so concurrent saves never lose updates;
+     * the server retries an upsert on _id that races another insert.
+     */
+    public void record(TestResult result) {
+        LocalDate day = result.getTimestamp().toLocalDate();
+        String prefix = "durations." + result.getDuration() + ".";
+
+        var bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, ProgressRollup.class);
+        for (ProgressPeriod period : ProgressPeriod.values()) {
+            LocalDate start = period.bucketStart(day);
+            Query query = new Query(Criteria.where("_id")
+                    .is(ProgressRollup.idOf(result.getUserId(), period.name(), start)));
+            Update update = new Update()
+                    .setOnInsert("userId", result.getUserId())
+                    .setOnInsert("period", period.name())
+                    .setOnInsert("start", start)
+                    .inc(prefix + "count", 1)
+                    .inc(prefix + "wpmSum", result.getWpm())
+                    .inc(prefix + "accuracySum", result.getAccuracy())
+                    .inc(prefix + "seconds", result.getDuration())
+                    .max(prefix + "wpmMax", result.getWpm());
+            bulk.upsert(query, update);
+        }
+        bulk.execute();
+    }
+
+    /**
+     * @param duration only this test duration, or {@code null} for all of them
+     * @return one point per bucket and duration, oldest first
+     */
+    public List<ProgressPointResponse> getProgress(String userId, ProgressPeriod period, LocalDate from,
+            LocalDate to, Integer duration) {
+        if (!mongoTemplate.exists(new Query(Criteria.where("_id").is(userId)), ProgressBackfill.class))
+            backfill(userId);
+
+        List<ProgressPointResponse> points = new ArrayList<>();
+        for (ProgressRollup rollup : progressRollupRepository.findByUserIdAndPeriodAndStartBetweenOrderByStartAsc(
+                userId, period.name(), Range.closed(period.bucketStart(from), to))) {
+            List<Map.Entry<String, ProgressRollup.Totals>> entries = new ArrayList<>(rollup.getDurations().entrySet());
+            entries.sort(Comparator.comparingInt(entry -> Integer.parseInt(entry.getKey())));
+            for (Map.Entry<String, ProgressRollup.Totals> entry : entries) {
+                int entryDuration = Integer.parseInt(entry.getKey());
+                ProgressRollup.Totals totals = entry.getValue();
+                if ((duration != null && entryDuration != duration) || totals.getCount() == 0)
+                    continue;
+                points.add(new ProgressPointResponse(rollup.getStart(), entryDuration, totals.getCount(),
+                        totals.getWpmSum() / totals.getCount(), totals.getWpmMax(),
+                        totals.getAccuracySum() / totals.getCount(), totals.getSeconds()));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Rebuilds the user's rollups from results saved before rollups existed.
+     * Runs once per user, on the first progress read. Each bucket is set to
+     * totals recomputed from {@code test_results}, so running it twice is
+     * harmless; a result the user saves while it runs may be missed or counted
+     * twice in the current bucket, once.
+     */
+    private void backfill(String userId) {
+        Query query = new Query(Criteria.where("userId").is(userId));
+        query.fields().include("timestamp", "duration", "wpm", "accuracy");
+
+        Map<String, ProgressRollup> rollups = new LinkedHashMap<>();
+        try (Stream<TestResult> results = mongoTemplate.stream(query, TestResult.class)) {
+            for (TestResult result : (Iterable<TestResult>) results::iterator) {
+                if (result.getTimestamp() == null)
+                    continue;
+                LocalDate day = result.getTimestamp().toLocalDate();
+                for (ProgressPeriod period : ProgressPeriod.values()) {
+                    LocalDate start = period.bucketStart(day);
+                    ProgressRollup rollup = rollups.computeIfAbsent(
+                            ProgressRollup.idOf(userId, period.name(), start), id -> {
+                                ProgressRollup created = new ProgressRollup();
+                                created.setId(id);
+                                created.setPeriod(period.name());
+                                created.setStart(start);
+                                return created;
+                            });
+                    ProgressRollup.Totals totals = rollup.getDurations()
+                            .computeIfAbsent(String.valueOf(result.getDuration()), d -> new ProgressRollup.Totals());
+                    totals.setCount(totals.getCount() + 1);
+                    totals.setWpmSum(totals.getWpmSum() + result.getWpm());
+                    totals.setAccuracySum(totals.getAccuracySum() + result.getAccuracy());
+                    totals.setSeconds(totals.getSeconds() + result.getDuration());
+                    totals.setWpmMax(Math.max(totals.getWpmMax(), result.getWpm()));
+                }
+            }
+        }
+
+        if (!rollups.isEmpty()) {
+            var bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, ProgressRollup.class);
+            for (ProgressRollup rollup : rollups.values()) {
+                Update update = new Update()
+                        .set("userId", userId)
+                        .set("period", rollup.getPeriod())
+                        .set("start", rollup.getStart());
+                rollup.getDurations().forEach((duration, totals) -> update.set("durations." + duration, totals));
+                bulk.upsert(new Query(Criteria.where("_id").is(rollup.getId())), update);
+            }
+            bulk.execute();
+        }
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(userId)),
+                new Update().set("backfilledAt", LocalDateTime.now()), ProgressBackfill.class);
+    }
+}
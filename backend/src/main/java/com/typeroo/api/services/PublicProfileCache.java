@@ -0,0 +1,133 @@
+package com.typeroo.api.services;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.typeroo.api.models.TestResult;
+import com.typeroo.api.payload.response.PublicProfileView;
+import com.typeroo.api.payload.response.UserStatsResponse;
+import com.typeroo.api.repository.TestResultRepository;
+import com.typeroo.api.repository.UserIdView;
+import com.typeroo.api.repository.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Read-through cache for the public, unauthenticated views of a user:
+ * profile, stats and history pages. Entries live for a short TTL and are
+ * dropped as soon as a {@link ProfileChangedEvent} names the user, so a
+ * burst of requests for one profile costs one set of queries. Unknown
+ * usernames are not cached, so a user who just signed up is visible at once.
+ */
+@Service
+public class PublicProfileCache {
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    TestResultRepository testResultRepository;
+
+    @Autowired
+    PersonalBestService personalBestService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${app.profileCache.maxEntries:10000}")
+    private int maxEntries;
+
+    @Value("${app.profileCache.ttlMs:30000}")
+    private long ttlMs;
+
+    private SingleFlightCache<String, ETaggedValue<PublicProfileView>> profiles;
+    private SingleFlightCache<String, ETaggedValue<UserStatsResponse>> stats;
+    private SingleFlightCache<HistoryKey, ETaggedValue<Page<TestResult>>> histories;
+
+    @PostConstruct
+    void init() {
+        profiles = new SingleFlightCache<>(maxEntries, ttlMs);
+        stats = new SingleFlightCache<>(maxEntries, ttlMs);
+        histories = new SingleFlightCache<>(maxEntries, ttlMs);
+    }
+
+    /** @return the public profile, or {@code null} if there is no such user */
+    public ETaggedValue<PublicProfileView> getProfile(String username) {
+        return profiles.get(username, name -> userRepository
+                .findByUsernameAndDeletedAtIsNull(name, PublicProfileView.class)
+                .map(this::tag)
+                .orElse(null));
+    }
+
+    public ETaggedValue<UserStatsResponse> getStats(String username) {
+        return stats.get(username, name -> findUserId(name)
+                .map(userId -> tag(new UserStatsResponse(personalBestService.getBests(userId).getBests())))
+                .orElse(null));
+    }
+
+    public ETaggedValue<Page<TestResult>> getHistory(String username, int page, int size) {
+        return histories.get(new HistoryKey(username, page, size), key -> findUserId(key.username)
+                .map(userId -> tag(testResultRepository.findByUserIdOrderByTimestampDesc(userId,
+                        PageRequest.of(key.page, key.size))))
+                .orElse(null));
+    }
+
+    @EventListener
+    public void onProfileChanged(ProfileChangedEvent event) {
+        for (String username : event.getUsernames()) {
+            profiles.invalidate(username);
+            stats.invalidate(username);
+            histories.invalidateIf(key -> key.username.equals(username));
+        }
+    }
+
+    private Optional<String> findUserId(String username) {
+        return userRepository.findByUsernameAndDeletedAtIsNull(username, UserIdView.class).map(UserIdView::getId);
+    }
+
+    private <T> ETaggedValue<T> tag(T value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(value));
+            String eTag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+            return new ETaggedValue<>(value, eTag);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class HistoryKey {
+        final String username;
+        final int page;
+        final int size;
+
+        HistoryKey(String username, int page, int size) {
+            this.username = username;
+            this.page = page;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof HistoryKey))
+                return false;
+            HistoryKey other = (HistoryKey) o;
+            return page == other.page && size == other.size && username.equals(other.username);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, page, size);
+        }
+    }
+}
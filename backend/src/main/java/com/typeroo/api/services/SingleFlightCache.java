@@ -0,0 +1,105 @@
+package com.typeroo.api.services;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded read-through cache whose entries expire after a fixed TTL.
+ * Concurrent misses on the same key are coalesced: the first caller runs the
+ * loader and everyone else waits for its result instead of loading again.
+ */
+public class SingleFlightCache<K, V> {
+    private final int maxSize;
+    private final long ttlMs;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    public SingleFlightCache(int maxSize, long ttlMs) {
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Returns the cached value for {@code key}, loading it if absent or
+     * expired. The loader may return {@code null}; callers already waiting on
+     * that load get it, but it is not cached, so a key that appears later
+     * (a new signup on any node) is found by the next caller.
+     */
+    public V get(K key, Function<K, V> loader) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now)
+            return entry.await();
+
+        if (entries.size() >= maxSize)
+            evict(now);
+        Entry<V> created = new Entry<>(now + ttlMs);
+        Entry<V> current = entries.compute(key, (k, existing) -> existing != null && existing.expiresAt > now
+                ? existing
+                : created);
+        if (current != created)
+            return current.await();
+
+        try {
+            V value = loader.apply(key);
+            if (value == null)
+                entries.remove(key, created);
+            created.future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            // Failures are not cached; waiters see the error and the next caller retries
+            entries.remove(key, created);
+            created.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the entry. A load already in flight still completes for the
+     * callers waiting on it, but its result is not kept.
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateIf(Predicate<K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Drops expired entries first, then arbitrary ones until there is room again
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        Iterator<K> it = entries.keySet().iterator();
+        while (entries.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static class Entry<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final long expiresAt;
+
+        Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        V await() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.typeroo.api.services;
+
+public class StaleCatalogCursorException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public StaleCatalogCursorException() {
+        super("The catalog changed since this cursor was issued");
+    }
+}
@@ -0,0 +1,363 @@
+package com.typeroo.api.services;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.typeroo.api.models.TestResult;
+import com.typeroo.api.repository.TestResultRepository;
+import com.typeroo.api.repository.UserRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Persists test results either inline or, in batched mode, through a bounded
+ * write-behind queue that a single flusher drains with unordered bulk inserts.
+ * A full queue is reported back to the caller instead of blocking the request.
+ * Personal bests, leaderboards, rollups, percentiles and totals are only
+ * updated once a result is durably stored.
+ */
+@Service
+public class TestResultIngestionService {
+    private static final Logger logger = LoggerFactory.getLogger(TestResultIngestionService.class);
+
+    // Results that still failed after every retry; replayed into test_results later
+    static final String RECOVERY_COLLECTION = "test_results_recovery";
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    TestResultRepository testResultRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    PersonalBestService personalBestService;
+
+    @Autowired
+    ProgressRollupService progressRollupService;
+
+    @Autowired
+    LeaderboardService leaderboardService;
+
+    @Autowired
+    PercentileService percentileService;
+
+    @Value("${app.ingestion.batched:false}")
+    private boolean batched;
+
+    @Value("${app.ingestion.queueCapacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.ingestion.batchSize:500}")
+    private int batchSize;
+
+    @Value("${app.ingestion.flushIntervalMs:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.ingestion.maxRetries:3}")
+    private int maxRetries;
+
+    @Value("${app.ingestion.retryBackoffMs:500}")
+    private long retryBackoffMs;
+
+    @Value("${app.ingestion.recoveryLeaseMs:300000}")
+    private long recoveryLeaseMs;
+
+    private BlockingQueue<TestResult> queue;
+    private Thread flusher;
+    private volatile boolean running;
+    // Submits hold the read lock across their running check and offer, so once
+    // drain() holds the write lock no result can slip in behind the final drain
+    private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+
+    private DistributionSummary batchSizes;
+    private Timer flushLatency;
+
+    @PostConstruct
+    void start() {
+        if (!batched)
+            return;
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("typeroo.ingestion.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        batchSizes = DistributionSummary.builder("typeroo.ingestion.batch.size").register(meterRegistry);
+        flushLatency = Timer.builder("typeroo.ingestion.flush.latency").register(meterRegistry);
+
+        running = true;
+        flusher = new Thread(this::run, "test-result-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * @return false if the write-behind queue is full and the result was not accepted
+     */
+    public boolean submit(TestResult result) {
+        // Assigned up front so a retried insert is recognised as a duplicate, not stored twice
+        if (result.getId() == null)
+            result.setId(new ObjectId().toHexString());
+
+        if (!batched) {
+            try {
+                testResultRepository.insert(result);
+            } catch (DuplicateKeyException e) {
+                // A retried request for a result already stored; its stats were applied then
+                return true;
+            }
+            applySaved(List.of(result));
+            return true;
+        }
+
+        lifecycle.readLock().lock();
+        try {
+            return running && queue.offer(result);
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+    }
+
+    private void run() {
+        List<TestResult> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                TestResult first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0)
+                        break;
+                    TestResult next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("Test result flusher error: {}", e.getMessage());
+            }
+        }
+        flush(batch);
+    }
+
+    /**
+     * Inserts the batch, retrying the documents that failed with a backoff.
+     * Whatever still fails is parked in the recovery collection rather than
+     * dropped. Derived state is updated only for the stored results.
+     */
+    private void flush(List<TestResult> batch) {
+        if (batch.isEmpty())
+            return;
+        long start = System.nanoTime();
+        List<TestResult> saved = new ArrayList<>(batch.size());
+        List<TestResult> pending = new ArrayList<>(batch);
+        try {
+            for (int attempt = 0; attempt <= maxRetries && !pending.isEmpty(); attempt++) {
+                if (attempt > 0)
+                    sleepBeforeRetry(attempt);
+                // A duplicate here was written by an earlier attempt of this flush, so it counts as saved
+                pending = insert(pending, saved, saved);
+            }
+            if (!pending.isEmpty())
+                park(pending);
+            applySaved(saved);
+        } finally {
+            flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizes.record(batch.size());
+            batch.clear();
+        }
+    }
+
+    /**
+     * One unordered bulk insert, so a bad document does not hold back the rest.
+     *
+     * @param inserted   receives the results this call stored
+     * @param duplicates receives the results that were already stored
+     * @return the results that failed and may be retried
+     */
+    private List<TestResult> insert(List<TestResult> results, List<TestResult> inserted,
+            List<TestResult> duplicates) {
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, TestResult.class).insert(results).execute();
+            inserted.addAll(results);
+            return List.of();
+        } catch (BulkOperationException e) {
+            int[] errorCodes = new int[results.size()];
+            for (BulkWriteError error : e.getErrors())
+                errorCodes[error.getIndex()] = error.getCode();
+            List<TestResult> retry = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                if (errorCodes[i] == 0)
+                    inserted.add(results.get(i));
+                else if (errorCodes[i] == DUPLICATE_KEY)
+                    duplicates.add(results.get(i));
+                else
+                    retry.add(results.get(i));
+            }
+            logger.warn("{} of {} test results failed to insert: {}", retry.size(), results.size(),
+                    e.getMessage());
+            return retry;
+        } catch (Exception e) {
+            logger.warn("Failed to insert {} test results: {}", results.size(), e.getMessage());
+            return results;
+        }
+    }
+
+    private void park(List<TestResult> results) {
+        try {
+            mongoTemplate.insert(results, RECOVERY_COLLECTION);
+            logger.error("Parked {} test results in {} after {} retries", results.size(), RECOVERY_COLLECTION,
+                    maxRetries);
+        } catch (Exception e) {
+            // Last resort: enough in the log to restore the results by hand
+            logger.error("Lost {} test results, cannot park them: {} {}", results.size(), e.getMessage(), results);
+        }
+    }
+
+    private void sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Moves parked results back into test_results once Mongo accepts them
+     * again, then applies their derived state. Every node runs this, so each
+     * run first leases a batch; a document is only ever leased to one node at
+     * a time, and its lease runs out if that node dies before finishing.
+     * Derived state is applied only for the results this run inserted.
+     */
+    @Scheduled(fixedDelayString = "${app.ingestion.recoveryIntervalMs:60000}")
+    public void replayParked() {
+        LocalDateTime now = LocalDateTime.now();
+        String claim = new ObjectId().toHexString();
+        List<TestResult> parked;
+        try {
+            Query claimable = new Query(new Criteria().orOperator(
+                    Criteria.where("leaseUntil").exists(false),
+                    Criteria.where("leaseUntil").lt(now))).limit(batchSize);
+            claimable.fields().include("_id");
+            List<String> ids = mongoTemplate.find(claimable, TestResult.class, RECOVERY_COLLECTION).stream()
+                    .map(TestResult::getId).collect(Collectors.toList());
+            if (ids.isEmpty())
+                return;
+            // The lease condition is re-checked per document, so a racing node cannot take the same ones
+            mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(ids).orOperator(
+                    Criteria.where("leaseUntil").exists(false),
+                    Criteria.where("leaseUntil").lt(now))),
+                    new Update().set("claim", claim).set("leaseUntil", now.plus(recoveryLeaseMs, ChronoUnit.MILLIS)),
+                    RECOVERY_COLLECTION);
+            parked = mongoTemplate.find(new Query(Criteria.where("claim").is(claim)), TestResult.class,
+                    RECOVERY_COLLECTION);
+        } catch (Exception e) {
+            logger.warn("Cannot claim parked test results: {}", e.getMessage());
+            return;
+        }
+        if (parked.isEmpty())
+            return;
+
+        List<TestResult> inserted = new ArrayList<>(parked.size());
+        List<TestResult> duplicates = new ArrayList<>();
+        insert(parked, inserted, duplicates);
+        List<String> done = new ArrayList<>(inserted.size() + duplicates.size());
+        inserted.forEach(result -> done.add(result.getId()));
+        duplicates.forEach(result -> done.add(result.getId()));
+        if (done.isEmpty())
+            return;
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(done).and("claim").is(claim)), RECOVERY_COLLECTION);
+        applySaved(inserted);
+        logger.info("Replayed {} parked test results ({} were already stored)", done.size(), duplicates.size());
+    }
+
+    private void applySaved(List<TestResult> saved) {
+        if (saved.isEmpty())
+            return;
+        for (TestResult result : saved) {
+            try {
+                personalBestService.record(result);
+                progressRollupService.record(result);
+                leaderboardService.record(result);
+                percentileService.record(result);
+                userRepository.incrementTotals(result.getUserId(), 1,
+                        (long) result.getCorrectChars() + result.getIncorrectChars(), result.getDuration());
+            } catch (Exception e) {
+                logger.error("Failed to update derived stats for test result {}: {}", result.getId(),
+                        e.getMessage());
+            }
+        }
+        // Cached public profile, stats and history read before the save would otherwise miss these results
+        Set<String> usernames = saved.stream().map(TestResult::getUsername).collect(Collectors.toSet());
+        eventPublisher.publishEvent(new ProfileChangedEvent(usernames));
+    }
+
+    @PreDestroy
+    void drain() throws InterruptedException {
+        if (!batched)
+            return;
+
+        lifecycle.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+
+        List<TestResult> remaining = new ArrayList<>(batchSize);
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            flush(remaining);
+        }
+        logger.info("Test result queue drained on shutdown");
+    }
+}
@@ -0,0 +1,46 @@
+package com.typeroo.api.services;
+
+/**
+ * Difficulty facet of catalog texts: longer words and more words containing
+ * capitals, digits or punctuation make a text harder to type.
+ */
+public enum TextDifficulty {
+    EASY, MEDIUM, HARD;
+
+    public static TextDifficulty of(String content) {
+        int words = 0;
+        int letters = 0;
+        int wordsWithSymbols = 0;
+        boolean inWord = false;
+        boolean symbol = false;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (inWord && symbol)
+                    wordsWithSymbols++;
+                inWord = false;
+                symbol = false;
+                continue;
+            }
+            if (!inWord) {
+                inWord = true;
+                words++;
+            }
+            if (c >= 'a' && c <= 'z')
+                letters++;
+            else
+                symbol = true;
+        }
+        if (inWord && symbol)
+            wordsWithSymbols++;
+        if (words == 0)
+            return EASY;
+
+        double score = (double) letters / words + 5.0 * wordsWithSymbols / words;
+        if (score <= 5)
+            return EASY;
+        if (score <= 6.5)
+            return MEDIUM;
+        return HARD;
+    }
+}
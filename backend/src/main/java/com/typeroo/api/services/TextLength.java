@@ -0,0 +1,16 @@
+package com.typeroo.api.services;
+
+/**
+ * Length facet of catalog texts, by word count.
+ */
+public enum TextLength {
+    SHORT, MEDIUM, LONG;
+
+    public static TextLength of(int wordCount) {
+        if (wordCount < 50)
+            return SHORT;
+        if (wordCount < 250)
+            return MEDIUM;
+        return LONG;
+    }
+}
@@ -0,0 +1,253 @@
+package com.typeroo.api.services;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.typeroo.api.models.User;
+import com.typeroo.api.payload.response.UserSearchResult;
+
+/**
+ * In-memory substring index over usernames. Queries of three or more
+ * characters intersect trigram postings; shorter ones fall back to a prefix
+ * range over the sorted usernames. Kept current by the signup, settings,
+ * profile and delete endpoints on this node, and by polling users whose
+ * updatedAt moved for changes made on other nodes.
+ */
+@Service
+public class UsernameSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(UsernameSearchIndex.class);
+
+    private static final int GRAM = 3;
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Value("${app.search.maxResults:100}")
+    private int maxResults;
+
+    @Value("${app.search.rebuildBatchSize:1000}")
+    private int rebuildBatchSize;
+
+    @Value("${app.search.syncIntervalMs:10000}")
+    private long syncIntervalMs;
+
+    // Start of the last rebuild or sync that read every change up to it
+    private volatile LocalDateTime lastSync;
+
+    private final Map<String, IndexedUser> users = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+    // "<lowercase username>\0<id>" -> id, for prefix lookups on short queries
+    private final ConcurrentSkipListMap<String, String> sorted = new ConcurrentSkipListMap<>();
+
+    public void put(User user) {
+        put(user.getId(), user.getUsername(), user.getAvatarUrl(), user.getUpdatedAt());
+    }
+
+    /**
+     * Indexes the user unless a newer version of it is already indexed, so a
+     * rebuild or sync that read the document before a rename cannot revert it.
+     * Users never changed since updatedAt was introduced have none.
+     */
+    public synchronized void put(String id, String username, String avatarUrl, LocalDateTime updatedAt) {
+        if (id == null || username == null)
+            return;
+        IndexedUser previous = users.get(id);
+        if (previous != null && previous.updatedAt != null
+                && (updatedAt == null || updatedAt.isBefore(previous.updatedAt)))
+            return;
+        IndexedUser current = new IndexedUser(id, username, avatarUrl, updatedAt);
+        users.put(id, current);
+        if (previous != null && previous.lower.equals(current.lower))
+            return;
+        if (previous != null)
+            unindex(previous);
+        for (String gram : grams(current.lower)) {
+            postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        sorted.put(current.lower + '\0' + id, id);
+    }
+
+    public synchronized void remove(String id) {
+        IndexedUser previous = users.remove(id);
+        if (previous != null)
+            unindex(previous);
+    }
+
+    private void unindex(IndexedUser user) {
+        for (String gram : grams(user.lower)) {
+            Set<String> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(user.id);
+                if (ids.isEmpty())
+                    postings.remove(gram);
+            }
+        }
+        sorted.remove(user.lower + '\0' + user.id);
+    }
+
+    /** @return the current username, or {@code null} if the user is not indexed */
+    public String usernameOf(String id) {
+        IndexedUser user = users.get(id);
+        return user == null ? null : user.username;
+    }
+
+    /**
+     * Ranked matches: exact, then prefix, then earlier match position, then
+     * shorter and alphabetical. At most {@code app.search.maxResults} hits are
+     * considered before paging.
+     */
+    public List<UserSearchResult> search(String query, int page, int size) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        List<IndexedUser> matches = q.length() < GRAM ? prefixMatches(q) : substringMatches(q);
+
+        matches.sort(Comparator
+                .comparingInt((IndexedUser u) -> u.lower.equals(q) ? 0 : 1)
+                .thenComparingInt(u -> u.lower.indexOf(q))
+                .thenComparingInt(u -> u.lower.length())
+                .thenComparing(u -> u.lower));
+
+        // As a long, since page * size overflows int for large pages
+        int from = (int) Math.min((long) page * size, matches.size());
+        int to = (int) Math.min((long) from + size, matches.size());
+        List<UserSearchResult> results = new ArrayList<>(to - from);
+        for (IndexedUser user : matches.subList(from, to)) {
+            results.add(new UserSearchResult(user.id, user.username, user.avatarUrl));
+        }
+        return results;
+    }
+
+    private List<IndexedUser> prefixMatches(String q) {
+        List<IndexedUser> matches = new ArrayList<>();
+        for (String id : sorted.subMap(q, true, q + Character.MAX_VALUE, true).values()) {
+            IndexedUser user = users.get(id);
+            if (user != null)
+                matches.add(user);
+            if (matches.size() >= maxResults)
+                break;
+        }
+        return matches;
+    }
+
+    private List<IndexedUser> substringMatches(String q) {
+        // Prefix hits always rank first, so take them before capping the rest
+        List<IndexedUser> matches = prefixMatches(q);
+        if (matches.size() >= maxResults)
+            return matches;
+
+        Set<String> smallest = null;
+        for (String gram : grams(q)) {
+            Set<String> ids = postings.get(gram);
+            if (ids == null)
+                return matches;
+            if (smallest == null || ids.size() < smallest.size())
+                smallest = ids;
+        }
+
+        for (String id : smallest) {
+            IndexedUser user = users.get(id);
+            // Verifying the substring covers every other posting list at once
+            if (user != null && user.lower.indexOf(q) > 0) {
+                matches.add(user);
+                if (matches.size() >= maxResults)
+                    break;
+            }
+        }
+        return matches;
+    }
+
+    private static List<String> grams(String value) {
+        List<String> grams = new ArrayList<>(Math.max(0, value.length() - GRAM + 1));
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Streams usernames from Mongo in batches. Searches are served from the
+     * partially built index while this runs, and puts made meanwhile win over
+     * the older documents it reads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDateTime startedAt = LocalDateTime.now();
+        Query query = new Query(Criteria.where("deletedAt").is(null));
+        query.fields().include("username", "avatarUrl", "updatedAt");
+        query.cursorBatchSize(rebuildBatchSize);
+
+        long count = 0;
+        try (Stream<User> stream = mongoTemplate.stream(query, User.class)) {
+            for (User user : (Iterable<User>) stream::iterator) {
+                put(user);
+                count++;
+            }
+        } catch (Exception e) {
+            logger.error("Username index rebuild failed after {} users: {}", count, e.getMessage());
+            return;
+        }
+        lastSync = startedAt;
+        logger.info("Username index built from {} users in {} ms", count, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Picks up signups, renames and avatar changes made on other nodes since
+     * the last run, with one interval of slack for clock skew and writes still
+     * in flight. Deletions are synced by AccountPurgeService.
+     */
+    @Scheduled(fixedDelayString = "${app.search.syncIntervalMs:10000}")
+    public void sync() {
+        if (lastSync == null)
+            return;
+        LocalDateTime startedAt = LocalDateTime.now();
+        Query query = new Query(Criteria.where("updatedAt").gt(lastSync.minus(syncIntervalMs, ChronoUnit.MILLIS))
+                .and("deletedAt").is(null));
+        query.fields().include("username", "avatarUrl", "updatedAt");
+        try {
+            for (User user : mongoTemplate.find(query, User.class)) {
+                put(user);
+            }
+        } catch (Exception e) {
+            logger.error("Cannot sync username index: {}", e.getMessage());
+            return;
+        }
+        lastSync = startedAt;
+    }
+
+    private static class IndexedUser {
+        final String id;
+        final String username;
+        final String lower;
+        final String avatarUrl;
+        final LocalDateTime updatedAt;
+
+        IndexedUser(String id, String username, String avatarUrl, LocalDateTime updatedAt) {
+            this.id = id;
+            this.username = username;
+            this.lower = username.toLowerCase(Locale.ROOT);
+            this.avatarUrl = avatarUrl;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
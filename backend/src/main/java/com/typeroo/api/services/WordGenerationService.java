@@ -0,0 +1,99 @@
+package com.typeroo.api.services;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+/**
+ * Generates test text from the word lists loaded at startup. Lists bundled
+ * under {@code classpath:wordlists/} are loaded first; {@code *.txt} files in
+ * {@code app.words.dir} are added on top (and replace bundled lists of the
+ * same name), which is where the large frequency lists are deployed.
+ */
+@Service
+public class WordGenerationService {
+    private static final Logger logger = LoggerFactory.getLogger(WordGenerationService.class);
+
+    @Value("${app.words.dir:}")
+    private String wordsDir;
+
+    private final Map<String, WordList> lists = new TreeMap<>();
+
+    @PostConstruct
+    void load() throws IOException {
+        Resource[] bundled = new PathMatchingResourcePatternResolver().getResources("classpath*:wordlists/*.txt");
+        for (Resource resource : bundled) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+                add(WordList.read(languageOf(resource.getFilename()), reader));
+            }
+        }
+
+        if (!wordsDir.isEmpty()) {
+            Path dir = Paths.get(wordsDir);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.txt")) {
+                for (Path file : files) {
+                    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                        add(WordList.read(languageOf(file.getFileName().toString()), reader));
+                    }
+                }
+            }
+        }
+    }
+
+    public Set<String> getLanguages() {
+        return lists.keySet();
+    }
+
+    public boolean hasLanguage(String language) {
+        return lists.containsKey(language);
+    }
+
+    /**
+     * Streams {@code count} space-separated words. The same language, seed
+     * and count always produce the same text.
+     */
+    public void generate(String language, long seed, int count, OutputStream out) throws IOException {
+        lists.get(language).write(seed, count, out);
+    }
+
+    /** The text {@link #generate} streams for the same arguments. */
+    public String generateText(String language, long seed, int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 8);
+        try {
+            generate(language, seed, count, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void add(WordList list) {
+        lists.put(list.getLanguage(), list);
+        logger.info("Loaded {} words for {}", list.size(), list.getLanguage());
+    }
+
+    private static String languageOf(String fileName) {
+        return fileName.substring(0, fileName.length() - ".txt".length());
+    }
+}
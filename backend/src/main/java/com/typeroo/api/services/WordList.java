@@ -0,0 +1,158 @@
+package com.typeroo.api.services;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.SplittableRandom;
+
+/**
+ * An immutable word list packed into primitive arrays: every word's UTF-8
+ * bytes back to back in one array, indexed by offsets, plus a Vose alias
+ * table so a frequency-weighted draw costs one random number and two array
+ * reads however large the list is.
+ */
+public class WordList {
+    private final String language;
+    private final byte[] bytes;
+    private final int[] offsets; // word i is bytes[offsets[i], offsets[i + 1])
+    private final float[] probability;
+    private final int[] alias;
+
+    private WordList(String language, byte[] bytes, int[] offsets, double[] weights) {
+        this.language = language;
+        this.bytes = bytes;
+        this.offsets = offsets;
+        int n = weights.length;
+        this.probability = new float[n];
+        this.alias = new int[n];
+        buildAliasTable(weights);
+    }
+
+    /**
+     * Reads one word per line, optionally followed by whitespace and a
+     * relative frequency. Blank lines and lines starting with {@code #} are
+     * skipped; words without a frequency get weight 1.
+     */
+    public static WordList read(String language, BufferedReader reader) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int[] offsets = new int[1024];
+        double[] weights = new double[1024];
+        int count = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            String word = line;
+            double weight = 1;
+            int split = indexOfWhitespace(line);
+            if (split > 0) {
+                word = line.substring(0, split);
+                try {
+                    weight = Double.parseDouble(line.substring(split).trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid frequency in " + language + " word list: " + line);
+                }
+                if (!(weight > 0))
+                    continue;
+            }
+
+            if (count + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                weights = Arrays.copyOf(weights, weights.length * 2);
+            }
+            offsets[count] = bytes.size();
+            weights[count] = weight;
+            bytes.writeBytes(word.getBytes(StandardCharsets.UTF_8));
+            count++;
+        }
+        if (count == 0)
+            throw new IOException("Empty word list: " + language);
+        offsets[count] = bytes.size();
+
+        return new WordList(language, bytes.toByteArray(), Arrays.copyOf(offsets, count + 1),
+                Arrays.copyOf(weights, count));
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public int size() {
+        return probability.length;
+    }
+
+    public String word(int index) {
+        return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    public int sample(SplittableRandom random) {
+        int column = random.nextInt(probability.length);
+        return random.nextFloat() < probability[column] ? column : alias[column];
+    }
+
+    /**
+     * Writes {@code count} sampled words separated by single spaces, copying
+     * the stored bytes directly so no per-word strings are created.
+     */
+    public void write(long seed, int count, OutputStream out) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                out.write(' ');
+            int word = sample(random);
+            out.write(bytes, offsets[word], offsets[word + 1] - offsets[word]);
+        }
+    }
+
+    // Vose's method: split columns into under- and over-full, then pair them off
+    private void buildAliasTable(double[] weights) {
+        int n = weights.length;
+        double total = 0;
+        for (double weight : weights)
+            total += weight;
+
+        double[] scaled = new double[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1)
+                small.push(i);
+            else
+                large.push(i);
+        }
+
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probability[less] = (float) scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1)
+                small.push(more);
+            else
+                large.push(more);
+        }
+        // Whatever is left is full up to rounding error
+        while (!large.isEmpty())
+            probability[large.pop()] = 1;
+        while (!small.isEmpty())
+            probability[small.pop()] = 1;
+    }
+
+    private static int indexOfWhitespace(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (Character.isWhitespace(line.charAt(i)))
+                return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,103 @@
+package com.typeroo.api.services;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-width WPM histogram. The scale is bounded, so linear half-wpm
+ * buckets give exact-enough answers. Histograms merge by adding counts.
+ * Saves land in a pending array that is periodically drained to the shared
+ * copy. Queries read an immutable cumulative snapshot, so they never
+ * contend with saves and cost the same regardless of how many tests exist.
+ */
+public final class WpmHistogram {
+    static final int BUCKETS_PER_WPM = 2;
+    // Last bucket collects everything at or above MAX_WPM
+    static final int MAX_WPM = 400;
+    static final int BUCKETS = MAX_WPM * BUCKETS_PER_WPM + 1;
+
+    private final AtomicLongArray pending = new AtomicLongArray(BUCKETS);
+    // cumulative[i] = tests in buckets 0..i, as of the last publish
+    private volatile long[] cumulative = new long[BUCKETS];
+
+    static int bucketOf(double wpm) {
+        if (!(wpm > 0))
+            return 0;
+        return (int) Math.min(BUCKETS - 1, Math.floor(wpm * BUCKETS_PER_WPM));
+    }
+
+    public void record(double wpm) {
+        pending.incrementAndGet(bucketOf(wpm));
+    }
+
+    /** Removes and returns the counts recorded since the last drain. */
+    long[] drainPending() {
+        long[] delta = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            delta[i] = pending.getAndSet(i, 0);
+        return delta;
+    }
+
+    /** Puts back a drained delta that could not be stored. */
+    void restorePending(long[] delta) {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (delta[i] != 0)
+                pending.addAndGet(i, delta[i]);
+        }
+    }
+
+    /** Replaces the snapshot with the shared counts plus anything still pending. */
+    void publish(Map<String, Long> shared) {
+        long[] counts = new long[BUCKETS];
+        for (Map.Entry<String, Long> entry : shared.entrySet()) {
+            int bucket = Integer.parseInt(entry.getKey());
+            if (bucket >= 0 && bucket < BUCKETS && entry.getValue() != null)
+                counts[bucket] += entry.getValue();
+        }
+        long running = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            running += counts[i] + pending.get(i);
+            counts[i] = running;
+        }
+        cumulative = counts;
+    }
+
+    public long total() {
+        return cumulative[BUCKETS - 1];
+    }
+
+    /**
+     * Share of tests slower than {@code wpm}, from 0 to 100. Tests in the
+     * same bucket count as half slower.
+     */
+    public double percentileOf(double wpm) {
+        long[] snapshot = cumulative;
+        long total = snapshot[BUCKETS - 1];
+        if (total == 0)
+            return 0;
+        int bucket = bucketOf(wpm);
+        long below = bucket == 0 ? 0 : snapshot[bucket - 1];
+        long within = snapshot[bucket] - below;
+        return 100.0 * (below + within / 2.0) / total;
+    }
+
+    /** Lower edge of the bucket holding the given percentile (0 to 100). */
+    public double valueAt(double percentile) {
+        long[] snapshot = cumulative;
+        long total = snapshot[BUCKETS - 1];
+        if (total == 0)
+            return 0;
+        long rank = (long) Math.ceil(Math.max(0, Math.min(100, percentile)) / 100.0 * total);
+        // First bucket whose cumulative count reaches the rank
+        int low = 0;
+        int high = BUCKETS - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshot[mid] >= Math.max(1, rank))
+                high = mid;
+            else
+                low = mid + 1;
+        }
+        return (double) low / BUCKETS_PER_WPM;
+    }
+}
@@ -0,0 +1,210 @@
+package com.typeroo.api.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.typeroo.api.models.AvatarBlob;
+
+/**
+ * Deduplicated avatar storage. Each distinct image is stored once under its
+ * digest and reference-counted by the users pointing at it; blobs nobody
+ * references are deleted by a background sweep after a grace period.
+ */
+@Service
+public class AvatarStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(AvatarStorageService.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    // How often and how long store() waits for a collection of the same blob on another node to finish
+    private static final int COLLECT_WAIT_ATTEMPTS = 50;
+    private static final long COLLECT_WAIT_MS = 100;
+
+    @Autowired
+    BlobStore blobStore;
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    HotBlobCache hotBlobCache;
+
+    @Value("${app.avatars.maxBytes:5242880}")
+    private long maxBytes;
+
+    @Value("${app.avatars.gcGraceMinutes:60}")
+    private long gcGraceMinutes;
+
+    @Value("${app.avatars.collectLeaseMs:60000}")
+    private long collectLeaseMs;
+
+    // Serializes commit and garbage collection of the same key on this node
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public AvatarStorageService() {
+        for (int i = 0; i < LOCK_STRIPES; i++)
+            locks[i] = new Object();
+    }
+
+    /**
+     * Stores the upload (or finds the identical blob already stored) and adds
+     * a reference to it. The reference is taken first so garbage collection on
+     * another node cannot delete an existing blob under the commit; it is
+     * released again if the commit fails. While another node is collecting
+     * the same blob, this waits for its files to be gone and then stores the
+     * upload afresh.
+     *
+     * @return the storage key of the blob
+     * @throws UnsupportedImageException if the content is not a supported image
+     */
+    public String store(InputStream in) throws IOException {
+        StagedBlob staged = blobStore.stage(in, maxBytes);
+        ImageType type = ImageType.sniff(staged.getHeader());
+        if (type == null) {
+            blobStore.discard(staged);
+            throw new UnsupportedImageException();
+        }
+
+        String key = staged.getDigest() + "." + type.getExtension();
+        for (int attempt = 1;; attempt++) {
+            synchronized (lockFor(key)) {
+                if (addReference(key, staged.getSize(), type.getContentType())) {
+                    try {
+                        blobStore.commit(staged, key);
+                    } catch (IOException | RuntimeException e) {
+                        release(key);
+                        blobStore.discard(staged);
+                        throw e;
+                    }
+                    return key;
+                }
+            }
+            if (attempt == COLLECT_WAIT_ATTEMPTS) {
+                blobStore.discard(staged);
+                throw new IOException("Avatar blob " + key + " is still being collected");
+            }
+            try {
+                Thread.sleep(COLLECT_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                blobStore.discard(staged);
+                throw new InterruptedIOException("Interrupted waiting for avatar blob " + key);
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if garbage collection holds a lease on the blob,
+     *         in which case no reference was added
+     */
+    public boolean addReference(String key, long size, String contentType) {
+        Update update = new Update()
+                .inc("refCount", 1)
+                .unset("unreferencedSince")
+                .unset("collectClaim")
+                .unset("collectingUntil")
+                .setOnInsert("size", size)
+                .setOnInsert("contentType", contentType)
+                .setOnInsert("createdAt", LocalDateTime.now());
+        // A lease left by a collector that died is taken over once it expires
+        Query query = new Query(Criteria.where("_id").is(key).orOperator(
+                Criteria.where("collectingUntil").exists(false),
+                Criteria.where("collectingUntil").lt(LocalDateTime.now())));
+        try {
+            mongoTemplate.upsert(query, update, AvatarBlob.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Drops one reference. Throws only if the reference was not dropped, so a
+     * caller can keep the key and retry without releasing it twice.
+     */
+    public void release(String key) {
+        if (key == null)
+            return;
+        AvatarBlob blob = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(key)),
+                new Update().inc("refCount", -1), AvatarBlob.class);
+        if (blob != null && blob.getRefCount() <= 1) {
+            try {
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(key).and("refCount").lte(0)),
+                        new Update().set("unreferencedSince", LocalDateTime.now()), AvatarBlob.class);
+            } catch (RuntimeException e) {
+                logger.error("Cannot mark avatar blob {} unreferenced, it will not be collected: {}", key,
+                        e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes blobs unreferenced for longer than the grace period. Each blob is
+     * leased before its files are deleted and its record is only removed
+     * afterwards, so a store() of the same image on another node cannot find
+     * the file still there, drop its own copy and then lose the file.
+     */
+    @Scheduled(fixedDelayString = "${app.avatars.gcIntervalMs:600000}")
+    public void collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(gcGraceMinutes);
+        Query candidates = new Query(Criteria.where("refCount").lte(0).and("unreferencedSince").lt(cutoff))
+                .limit(500);
+        List<AvatarBlob> blobs = mongoTemplate.find(candidates, AvatarBlob.class);
+
+        int deleted = 0;
+        for (AvatarBlob blob : blobs) {
+            synchronized (lockFor(blob.getKey())) {
+                // Only delete the file if nobody re-referenced the blob in the meantime
+                String claim = new ObjectId().toHexString();
+                LocalDateTime now = LocalDateTime.now();
+                Query collectable = new Query(Criteria.where("_id").is(blob.getKey())
+                        .and("refCount").lte(0).and("unreferencedSince").lt(cutoff)
+                        .orOperator(Criteria.where("collectingUntil").exists(false),
+                                Criteria.where("collectingUntil").lt(now)));
+                Update lease = new Update().set("collectClaim", claim)
+                        .set("collectingUntil", now.plus(collectLeaseMs, ChronoUnit.MILLIS));
+                if (mongoTemplate.updateFirst(collectable, lease, AvatarBlob.class).getMatchedCount() == 0)
+                    continue;
+                try {
+                    blobStore.delete(blob.getKey());
+                    hotBlobCache.invalidate(blob.getKey());
+                    for (int size : AvatarThumbnailService.SIZES) {
+                        String variantKey = AvatarThumbnailService.variantKey(blob.getKey(), size);
+                        blobStore.delete(variantKey);
+                        hotBlobCache.invalidate(variantKey);
+                    }
+                } catch (IOException e) {
+                    // Retried by a later sweep once the lease expires
+                    logger.error("Cannot delete avatar blob {}: {}", blob.getKey(), e.getMessage());
+                    continue;
+                }
+                mongoTemplate.remove(new Query(Criteria.where("_id").is(blob.getKey()).and("collectClaim").is(claim)),
+                        AvatarBlob.class);
+                deleted++;
+            }
+        }
+        if (deleted > 0)
+            logger.info("Collected {} unreferenced avatar blobs", deleted);
+    }
+
+    private Object lockFor(String key) {
+        return locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,192 @@
+package com.typeroo.api.storage;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Renders square, fixed-size variants of uploaded avatars on a small bounded
+ * pool so uploads return immediately. Until a variant exists, the original
+ * is served in its place.
+ */
+@Service
+public class AvatarThumbnailService {
+    private static final Logger logger = LoggerFactory.getLogger(AvatarThumbnailService.class);
+
+    public static final List<Integer> SIZES = List.of(32, 64, 256);
+
+    @Autowired
+    BlobStore blobStore;
+
+    @Value("${app.avatars.thumbnailThreads:2}")
+    private int threads;
+
+    @Value("${app.avatars.thumbnailQueue:100}")
+    private int queueCapacity;
+
+    // Decompression-bomb guard, checked from the header before any pixels are decoded
+    @Value("${app.avatars.maxPixels:25000000}")
+    private long maxPixels;
+
+    @Value("${app.avatars.maxDimension:8192}")
+    private int maxDimension;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "avatar-thumbnails-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Key of a variant; derived from the source key so the serving path can
+     * find it without a lookup. Sources that may carry transparency get PNG
+     * variants, JPEG sources get JPEG ones.
+     */
+    public static String variantKey(String sourceKey, int size) {
+        int dot = sourceKey.lastIndexOf('.');
+        String extension = ImageType.fromKey(sourceKey) == ImageType.JPEG ? "jpg" : "png";
+        return sourceKey.substring(0, dot) + "-" + size + "." + extension;
+    }
+
+    public void submit(String sourceKey) {
+        if (blobStore.exists(variantKey(sourceKey, SIZES.get(SIZES.size() - 1))))
+            return;
+        try {
+            executor.execute(() -> render(sourceKey));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Thumbnail queue full, serving original for {}", sourceKey);
+        }
+    }
+
+    private void render(String sourceKey) {
+        try {
+            BufferedImage source = decode(sourceKey);
+            if (source == null)
+                return;
+            BufferedImage square = cropSquare(source);
+            for (int size : SIZES) {
+                String key = variantKey(sourceKey, size);
+                byte[] encoded = encode(scale(square, size), key.endsWith(".jpg"));
+                StagedBlob staged = blobStore.stage(new ByteArrayInputStream(encoded), encoded.length);
+                blobStore.commit(staged, key);
+            }
+        } catch (Exception e) {
+            logger.error("Cannot render thumbnails for {}: {}", sourceKey, e.getMessage());
+        }
+    }
+
+    private BufferedImage decode(String key) throws IOException {
+        try (InputStream in = blobStore.open(key); ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                // e.g. WebP, which ImageIO cannot decode; the original is served as is
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width > maxDimension || height > maxDimension || (long) width * height > maxPixels) {
+                    logger.warn("Skipping thumbnails for {}: {}x{} exceeds limits", key, width, height);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage cropSquare(BufferedImage image) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        return image.getSubimage((image.getWidth() - side) / 2, (image.getHeight() - side) / 2, side, side);
+    }
+
+    /**
+     * Halves repeatedly before the final bilinear step; a single bilinear
+     * pass from a large image to a tiny one aliases badly.
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage current = image;
+        int side = image.getWidth();
+        do {
+            side = Math.max(size, side / 2);
+            BufferedImage next = new BufferedImage(side, side, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, side, side, null);
+            g.dispose();
+            current = next;
+        } while (side > size);
+        return current;
+    }
+
+    private static byte[] encode(BufferedImage image, boolean jpeg) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!jpeg) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(0.85f);
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package com.typeroo.api.storage;
+
+/**
+ * Size and modification time of a committed blob.
+ */
+public class BlobInfo {
+    private final long size;
+    private final long lastModified;
+
+    public BlobInfo(long size, long lastModified) {
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /** Epoch milliseconds. */
+    public long getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,56 @@
+package com.typeroo.api.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Content-addressed blob storage. Uploads are first staged (hashed while
+ * being copied) and then committed under a key derived from their digest, so
+ * identical content is only ever stored once.
+ */
+public interface BlobStore {
+    /**
+     * Copies the stream to staging, computing its SHA-256 on the way.
+     *
+     * @throws BlobTooLargeException if more than {@code maxBytes} are read
+     */
+    StagedBlob stage(InputStream in, long maxBytes) throws IOException;
+
+    /**
+     * Publishes a staged blob under {@code key}. If the key already exists the
+     * staged copy is simply dropped.
+     */
+    void commit(StagedBlob staged, String key) throws IOException;
+
+    void discard(StagedBlob staged);
+
+    boolean exists(String key);
+
+    InputStream open(String key) throws IOException;
+
+    /**
+     * @return size and modification time, or {@code null} if there is no such blob
+     */
+    BlobInfo stat(String key) throws IOException;
+
+    /**
+     * File holding the blob, for stores that keep blobs on the local disk, so
+     * it can be sent to the socket without passing through the heap.
+     *
+     * @return the file, or {@code null} if the store is not file-backed
+     */
+    default Path localPath(String key) {
+        return null;
+    }
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Relative path the blob is served under, sharded by the first bytes of
+     * the digest, e.g. {@code ab/cd/abcd....png}.
+     */
+    static String shardedPath(String key) {
+        return key.substring(0, 2) + "/" + key.substring(2, 4) + "/" + key;
+    }
+}
@@ -0,0 +1,11 @@
+package com.typeroo.api.storage;
+
+import java.io.IOException;
+
+public class BlobTooLargeException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public BlobTooLargeException(long maxBytes) {
+        super("Upload exceeds " + maxBytes + " bytes");
+    }
+}
@@ -0,0 +1,51 @@
+package com.typeroo.api.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Single pass over an upload: copies, hashes and keeps the header bytes.
+ */
+class HashingCopier {
+    static final int HEADER_BYTES = 16;
+
+    private final MessageDigest digest;
+    private final byte[] header = new byte[HEADER_BYTES];
+    private int headerLength = 0;
+    private long size = 0;
+
+    HashingCopier() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void copy(InputStream in, OutputStream out, long maxBytes) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            size += read;
+            if (size > maxBytes)
+                throw new BlobTooLargeException(maxBytes);
+            if (headerLength < HEADER_BYTES) {
+                int n = Math.min(read, HEADER_BYTES - headerLength);
+                System.arraycopy(buffer, 0, header, headerLength, n);
+                headerLength += n;
+            }
+            digest.update(buffer, 0, read);
+            out.write(buffer, 0, read);
+        }
+    }
+
+    StagedBlob toStaged(Object handle) {
+        return new StagedBlob(HexFormat.of().formatHex(digest.digest()), size, Arrays.copyOf(header, headerLength),
+                handle);
+    }
+}
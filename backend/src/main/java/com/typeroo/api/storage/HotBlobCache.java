@@ -0,0 +1,79 @@
+package com.typeroo.api.storage;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Contents of small, frequently served blobs, bounded by total bytes. Blobs
+ * are immutable once committed, so entries only leave on eviction or when
+ * the blob is deleted.
+ */
+@Component
+public class HotBlobCache {
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    public HotBlobCache(@Value("${app.avatars.hotCacheBytes:33554432}") long maxBytes,
+            @Value("${app.avatars.hotCacheMaxEntryBytes:65536}") int maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    public boolean accepts(long size) {
+        return size <= maxEntryBytes && size <= maxBytes;
+    }
+
+    public Entry get(String key) {
+        return entries.get(key);
+    }
+
+    public void put(String key, byte[] content, long lastModified) {
+        if (!accepts(content.length))
+            return;
+        if (totalBytes.get() + content.length > maxBytes)
+            evict(content.length);
+        if (entries.putIfAbsent(key, new Entry(content, lastModified)) == null)
+            totalBytes.addAndGet(content.length);
+    }
+
+    public void invalidate(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null)
+            totalBytes.addAndGet(-removed.content.length);
+    }
+
+    // Drops arbitrary entries until the new one fits
+    private void evict(int needed) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (totalBytes.get() + needed > maxBytes && it.hasNext()) {
+            Entry removed = it.next();
+            it.remove();
+            totalBytes.addAndGet(-removed.content.length);
+        }
+    }
+
+    public static class Entry {
+        private final byte[] content;
+        private final long lastModified;
+
+        Entry(byte[] content, long lastModified) {
+            this.content = content;
+            this.lastModified = lastModified;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        public BlobInfo getInfo() {
+            return new BlobInfo(content.length, lastModified);
+        }
+    }
+}
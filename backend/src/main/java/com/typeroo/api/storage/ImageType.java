@@ -0,0 +1,50 @@
+package com.typeroo.api.storage;
+
+/**
+ * Image formats accepted as avatars, recognised by their magic bytes rather
+ * than the client-supplied file name or content type.
+ */
+public enum ImageType {
+    PNG("png", "image/png"),
+    JPEG("jpg", "image/jpeg"),
+    GIF("gif", "image/gif"),
+    WEBP("webp", "image/webp");
+
+    private final String extension;
+    private final String contentType;
+
+    ImageType(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static ImageType sniff(byte[] h) {
+        if (h.length >= 8 && (h[0] & 0xff) == 0x89 && h[1] == 'P' && h[2] == 'N' && h[3] == 'G')
+            return PNG;
+        if (h.length >= 3 && (h[0] & 0xff) == 0xff && (h[1] & 0xff) == 0xd8 && (h[2] & 0xff) == 0xff)
+            return JPEG;
+        if (h.length >= 6 && h[0] == 'G' && h[1] == 'I' && h[2] == 'F' && h[3] == '8')
+            return GIF;
+        if (h.length >= 12 && h[0] == 'R' && h[1] == 'I' && h[2] == 'F' && h[3] == 'F'
+                && h[8] == 'W' && h[9] == 'E' && h[10] == 'B' && h[11] == 'P')
+            return WEBP;
+        return null;
+    }
+
+    public static ImageType fromKey(String key) {
+        String extension = key.substring(key.lastIndexOf('.') + 1);
+        for (ImageType type : values()) {
+            if (type.extension.equals(extension))
+                return type;
+        }
+        return null;
+    }
+}
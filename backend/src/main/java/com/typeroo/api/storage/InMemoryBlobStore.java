@@ -0,0 +1,67 @@
+package com.typeroo.api.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps blobs on the heap; for tests and local runs without a writable disk.
+ */
+@Component
+@ConditionalOnProperty(name = "app.avatars.store", havingValue = "memory")
+public class InMemoryBlobStore implements BlobStore {
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+    private final Map<String, Long> committedAt = new ConcurrentHashMap<>();
+
+    @Override
+    public StagedBlob stage(InputStream in, long maxBytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HashingCopier copier = new HashingCopier();
+        copier.copy(in, out, maxBytes);
+        return copier.toStaged(out.toByteArray());
+    }
+
+    @Override
+    public void commit(StagedBlob staged, String key) {
+        if (blobs.putIfAbsent(key, (byte[]) staged.handle) == null)
+            committedAt.put(key, System.currentTimeMillis());
+    }
+
+    @Override
+    public void discard(StagedBlob staged) {
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return blobs.containsKey(key);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        byte[] blob = blobs.get(key);
+        if (blob == null)
+            throw new FileNotFoundException(key);
+        return new ByteArrayInputStream(blob);
+    }
+
+    @Override
+    public BlobInfo stat(String key) {
+        byte[] blob = blobs.get(key);
+        if (blob == null)
+            return null;
+        return new BlobInfo(blob.length, committedAt.getOrDefault(key, 0L));
+    }
+
+    @Override
+    public void delete(String key) {
+        blobs.remove(key);
+        committedAt.remove(key);
+    }
+}
@@ -0,0 +1,104 @@
+package com.typeroo.api.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "app.avatars.store", havingValue = "local", matchIfMissing = true)
+public class LocalFileBlobStore implements BlobStore {
+    private final Path root;
+    private final Path staging;
+
+    // Staging lives outside the served directory and must be on the same filesystem for atomic moves
+    public LocalFileBlobStore(@Value("${app.avatars.dir:./uploads/blobs}") String dir,
+            @Value("${app.avatars.stagingDir:./uploads-staging}") String stagingDir) throws IOException {
+        this.root = Paths.get(dir).toAbsolutePath();
+        this.staging = Paths.get(stagingDir).toAbsolutePath();
+        Files.createDirectories(root);
+        Files.createDirectories(staging);
+    }
+
+    @Override
+    public StagedBlob stage(InputStream in, long maxBytes) throws IOException {
+        Path temp = Files.createTempFile(staging, "upload", ".tmp");
+        HashingCopier copier = new HashingCopier();
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            copier.copy(in, out, maxBytes);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return copier.toStaged(temp);
+    }
+
+    @Override
+    public void commit(StagedBlob staged, String key) throws IOException {
+        Path temp = (Path) staged.handle;
+        Path target = resolve(key);
+        if (Files.exists(target)) {
+            Files.deleteIfExists(temp);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void discard(StagedBlob staged) {
+        try {
+            Files.deleteIfExists((Path) staged.handle);
+        } catch (IOException e) {
+            // Left for the next staging cleanup
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public BlobInfo stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            return new BlobInfo(attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return resolve(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    public Path resolve(String key) {
+        return root.resolve(BlobStore.shardedPath(key));
+    }
+}
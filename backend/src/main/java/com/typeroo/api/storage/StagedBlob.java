@@ -0,0 +1,34 @@
+package com.typeroo.api.storage;
+
+/**
+ * An upload that has been copied and hashed but is not yet visible.
+ */
+public class StagedBlob {
+    private final String digest;
+    private final long size;
+    private final byte[] header;
+
+    // Store-specific handle on the staged bytes (temp file, byte array, ...)
+    final Object handle;
+
+    StagedBlob(String digest, long size, byte[] header, Object handle) {
+        this.digest = digest;
+        this.size = size;
+        this.header = header;
+        this.handle = handle;
+    }
+
+    /** Lowercase hex SHA-256 of the content. */
+    public String getDigest() {
+        return digest;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /** The first bytes of the content, for sniffing the file type. */
+    public byte[] getHeader() {
+        return header;
+    }
+}
@@ -0,0 +1,9 @@
+package com.typeroo.api.storage;
+
+public class UnsupportedImageException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedImageException() {
+        super("Only PNG, JPEG, GIF and WebP images are supported");
+    }
+}
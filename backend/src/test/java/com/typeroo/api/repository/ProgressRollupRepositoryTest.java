@@ -0,0 +1,108 @@
+package com.typeroo.api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.typeroo.api.models.ProgressBackfill;
+import com.typeroo.api.models.ProgressRollup;
+import com.typeroo.api.models.TestResult;
+import com.typeroo.api.payload.response.ProgressPointResponse;
+import com.typeroo.api.services.ProgressPeriod;
+import com.typeroo.api.services.ProgressRollupService;
+
+/**
+ * Range reads and the backfill of progress rollups against a test mongod.
+ * Runs only when -Dmongo.uri names one.
+ */
+@DataMongoTest(properties = "spring.data.mongodb.uri=${mongo.uri}")
+@EnabledIfSystemProperty(named = "mongo.uri", matches = ".+")
+class ProgressRollupRepositoryTest {
+    private static final LocalDate FROM = LocalDate.of(2024, 3, 4);
+    private static final LocalDate TO = LocalDate.of(2024, 3, 10);
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    ProgressRollupRepository progressRollupRepository;
+
+    private ProgressRollupService service;
+    private String userId;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProgressRollupService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "progressRollupRepository", progressRollupRepository);
+        userId = new ObjectId().toHexString();
+    }
+
+    @Test
+    void rangeIncludesBucketsOnBothEdges() {
+        for (LocalDate start : List.of(FROM.minusDays(1), FROM, FROM.plusDays(3), TO, TO.plusDays(1)))
+            mongoTemplate.save(rollup(start));
+
+        List<LocalDate> starts = progressRollupRepository
+                .findByUserIdAndPeriodAndStartBetweenOrderByStartAsc(userId, "DAY", Range.closed(FROM, TO))
+                .stream().map(ProgressRollup::getStart).collect(Collectors.toList());
+
+        assertThat(starts).containsExactly(FROM, FROM.plusDays(3), TO);
+    }
+
+    @Test
+    void backfillBuildsRollupsFromExistingResults() {
+        mongoTemplate.save(result(FROM.atTime(9, 0), 60.0));
+        mongoTemplate.save(result(FROM.atTime(18, 0), 80.0));
+        mongoTemplate.save(result(TO.atTime(12, 0), 100.0));
+
+        List<ProgressPointResponse> days = service.getProgress(userId, ProgressPeriod.DAY, FROM, TO, null);
+        List<ProgressPointResponse> weeks = service.getProgress(userId, ProgressPeriod.WEEK, FROM, TO, null);
+
+        assertThat(days).extracting(ProgressPointResponse::getCount).containsExactly(2, 1);
+        assertThat(weeks).extracting(ProgressPointResponse::getCount).containsExactly(3);
+        assertThat(mongoTemplate.findById(userId, ProgressBackfill.class)).isNotNull();
+    }
+
+    @Test
+    void backfillRunsOncePerUser() {
+        mongoTemplate.save(result(FROM.atTime(9, 0), 60.0));
+        service.getProgress(userId, ProgressPeriod.DAY, FROM, TO, null);
+
+        // Recorded on save from now on; a second backfill would not see it as new
+        TestResult later = result(FROM.atTime(10, 0), 70.0);
+        mongoTemplate.save(later);
+        service.record(later);
+
+        assertThat(service.getProgress(userId, ProgressPeriod.DAY, FROM, TO, null))
+                .extracting(ProgressPointResponse::getCount).containsExactly(2);
+    }
+
+    private ProgressRollup rollup(LocalDate start) {
+        ProgressRollup rollup = new ProgressRollup();
+        rollup.setId(ProgressRollup.idOf(userId, "DAY", start));
+        rollup.setUserId(userId);
+        rollup.setPeriod("DAY");
+        rollup.setStart(start);
+        return rollup;
+    }
+
+    private TestResult result(LocalDateTime timestamp, double wpm) {
+        TestResult result = new TestResult(userId, "rollup-test", wpm, wpm, 95, 30, 100, 5);
+        result.setTimestamp(timestamp);
+        return result;
+    }
+}
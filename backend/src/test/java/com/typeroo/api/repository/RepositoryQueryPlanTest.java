@@ -0,0 +1,201 @@
+package com.typeroo.api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.typeroo.api.payload.response.CustomTextSummary;
+import com.typeroo.api.payload.response.PublicProfileView;
+import com.typeroo.api.security.service.TokenRevocationService;
+import com.typeroo.api.services.PersonalBestService;
+import com.typeroo.api.services.ProgressPeriod;
+import com.typeroo.api.services.ProgressRollupService;
+import com.typeroo.api.services.UsernameSearchIndex;
+
+/**
+ * Runs the real repository methods against a test mongod with the indexes
+ * MongoIndexManager creates. It captures the commands they send and fails if
+ * any winning plan contains a collection scan or an in-memory sort. Runs only
+ * when -Dmongo.uri names a test mongod, e.g.
+ * {@code mvn test -Dmongo.uri=mongodb://localhost:27017/typeroo_plan_test}.
+ */
+@DataMongoTest(properties = "spring.data.mongodb.uri=${mongo.uri}")
+@EnabledIfSystemProperty(named = "mongo.uri", matches = ".+")
+@Import(MongoIndexManager.class)
+class RepositoryQueryPlanTest {
+    private static final String PROBE = "explain-probe";
+    private static final String PROBE_ID = new ObjectId().toHexString();
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    CommandCapture capture;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    TestResultRepository testResultRepository;
+
+    @Autowired
+    CustomTextRepository customTextRepository;
+
+    @Autowired
+    PersonalBestRepository personalBestRepository;
+
+    @Autowired
+    ProgressRollupRepository progressRollupRepository;
+
+    @BeforeEach
+    void clearCommands() {
+        capture.commands.clear();
+    }
+
+    @Test
+    void userLookups() {
+        userRepository.findByUsername(PROBE);
+        userRepository.findByUsernameAndDeletedAtIsNull(PROBE, PublicProfileView.class);
+        userRepository.findByUsernameAndDeletedAtIsNull(PROBE, UserIdView.class);
+        userRepository.existsByUsername(PROBE);
+        userRepository.findByEmail(PROBE);
+        userRepository.existsByEmail(PROBE);
+        userRepository.findProjectedById(PROBE_ID, PublicProfileView.class);
+        userRepository.incrementTotals(PROBE_ID, 1, 100, 30);
+        assertIndexed();
+    }
+
+    @Test
+    void testResultHistory() {
+        testResultRepository.findByUserId(PROBE);
+        testResultRepository.findByUserIdOrderByTimestampDesc(PROBE, PageRequest.of(2, 10));
+        testResultRepository.findHistoryAfter(PROBE, null, 10);
+        testResultRepository.findHistoryAfter(PROBE, new HistoryCursor(LocalDateTime.now(), PROBE_ID), 10);
+        assertIndexed();
+    }
+
+    @Test
+    void customTexts() {
+        customTextRepository.findByUserId(PROBE);
+        customTextRepository.findByUserId(PROBE, CustomTextSummary.class);
+        assertIndexed();
+    }
+
+    @Test
+    void progressRollups() {
+        ProgressRollupService service = new ProgressRollupService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "progressRollupRepository", progressRollupRepository);
+        LocalDate today = LocalDate.now();
+        service.getProgress(PROBE, ProgressPeriod.WEEK, today.minusDays(90), today, null);
+        assertIndexed();
+    }
+
+    @Test
+    void personalBestBackfill() {
+        PersonalBestService service = new PersonalBestService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "personalBestRepository", personalBestRepository);
+        service.getBests(PROBE);
+        assertIndexed();
+    }
+
+    @Test
+    void tokenRevocationLoad() {
+        TokenRevocationService service = new TokenRevocationService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        service.load();
+        assertIndexed();
+    }
+
+    @Test
+    void usernameSearchSync() {
+        UsernameSearchIndex index = new UsernameSearchIndex();
+        ReflectionTestUtils.setField(index, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(index, "lastSync", LocalDateTime.now());
+        index.sync();
+        assertIndexed();
+    }
+
+    private void assertIndexed() {
+        assertThat(capture.commands).as("commands sent to mongod").isNotEmpty();
+        List<String> failures = new ArrayList<>();
+        for (BsonDocument command : capture.commands) {
+            Document explain = mongoTemplate.getDb().runCommand(new Document("explain", explainable(command))
+                    .append("verbosity", "queryPlanner"));
+            List<String> stages = new ArrayList<>();
+            collectStages(explain, stages);
+            if (stages.contains("COLLSCAN") || stages.contains("SORT"))
+                failures.add(command.getFirstKey() + " " + command.get(command.getFirstKey()) + " uses " + stages);
+        }
+        assertThat(failures).as("plans without index support").isEmpty();
+    }
+
+    // The captured command minus the driver's session and routing fields, which explain rejects
+    private static BsonDocument explainable(BsonDocument command) {
+        BsonDocument copy = command.clone();
+        copy.keySet().removeIf(key -> key.startsWith("$") || key.equals("lsid") || key.equals("txnNumber"));
+        return copy;
+    }
+
+    // Walks the plan tree; only winning plans are inspected, rejected ones are skipped
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document doc) {
+            Object stage = doc.get("stage");
+            if (stage instanceof String name)
+                stages.add(name);
+            // An aggregation $sort that was not pushed down into the query layer
+            if (doc.containsKey("$sort"))
+                stages.add("SORT");
+            doc.forEach((key, value) -> {
+                if (!"rejectedPlans".equals(key) && !"command".equals(key))
+                    collectStages(value, stages);
+            });
+        } else if (node instanceof List<?> list) {
+            for (Object item : list)
+                collectStages(item, stages);
+        }
+    }
+
+    @TestConfiguration
+    static class CommandCapture {
+        private static final Set<String> EXPLAINABLE = Set.of("find", "aggregate", "count", "distinct", "update",
+                "delete", "findAndModify");
+
+        final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer captureCommands() {
+            return builder -> builder.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if (EXPLAINABLE.contains(event.getCommandName()))
+                        commands.add(event.getCommand().clone());
+                }
+            });
+        }
+    }
+}
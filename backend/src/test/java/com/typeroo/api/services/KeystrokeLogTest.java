@@ -0,0 +1,35 @@
+package com.typeroo.api.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class KeystrokeLogTest {
+
+    @Test
+    void writerStartsWithTheVersion() {
+        assertThat(new KeystrokeLog.Writer().toByteArray()).containsExactly(KeystrokeLog.VERSION);
+    }
+
+    @Test
+    void smallValuesTakeOneByteEach() {
+        byte[] log = new KeystrokeLog.Writer().event(100, 'a').event(0, KeystrokeLog.SPACE).toByteArray();
+
+        assertThat(log).containsExactly(KeystrokeLog.VERSION, 100, 'a', 0, KeystrokeLog.SPACE);
+    }
+
+    @Test
+    void largerValuesAreLittleEndianGroupsOfSevenBits() {
+        byte[] log = new KeystrokeLog.Writer().event(300, 0x1F600).toByteArray();
+
+        // 300 = 0b10_0101100, 0x1F600 = 0b111_1101100_0000000
+        assertThat(log).containsExactly(KeystrokeLog.VERSION, 0xAC, 0x02, 0x80, 0xEC, 0x07);
+    }
+
+    @Test
+    void maxIntTakesFiveBytes() {
+        byte[] log = new KeystrokeLog.Writer().event(Integer.MAX_VALUE, 'a').toByteArray();
+
+        assertThat(log).containsExactly(KeystrokeLog.VERSION, 0xFF, 0xFF, 0xFF, 0xFF, 0x07, 'a');
+    }
+}
@@ -0,0 +1,241 @@
+package com.typeroo.api.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.typeroo.api.services.KeystrokeValidation.Flag;
+
+class KeystrokeValidatorTest {
+    private static final char BACKSPACE = (char) KeystrokeLog.BACKSPACE;
+
+    private KeystrokeValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        // The application.properties defaults
+        validator = new KeystrokeValidator();
+        ReflectionTestUtils.setField(validator, "maxLogBytes", 65536);
+        ReflectionTestUtils.setField(validator, "minIntervalMs", 12);
+        ReflectionTestUtils.setField(validator, "maxFastIntervalRatio", 0.25);
+        ReflectionTestUtils.setField(validator, "minIntervalVariation", 0.15);
+        ReflectionTestUtils.setField(validator, "maxRawWpm", 350.0);
+        ReflectionTestUtils.setField(validator, "durationSlackMs", 1500L);
+    }
+
+    @Test
+    void roundTripsWhatTheWriterEncodes() {
+        byte[] log = new KeystrokeLog.Writer()
+                .event(200, 't').event(5000, 'h').event(70000, 'e').event(0, 0x1F600)
+                .toByteArray();
+
+        KeystrokeValidation validation = validator.validate(log, null, 120, 4, 0);
+
+        assertThat(validation.getElapsedMs()).isEqualTo(75200);
+        assertThat(validation.getCorrectChars() + validation.getIncorrectChars()).isEqualTo(4);
+        assertThat(validation.getFlags()).doesNotContain(Flag.MALFORMED);
+    }
+
+    @Test
+    void replayMatchesTheClientsCounts() {
+        // t h x <bs> e: the mistyped x stays counted, as in the client
+        KeystrokeValidation validation = validator.validate(typed("thx" + BACKSPACE + "e cat"), "the cat", 15, 6, 1);
+
+        assertThat(validation.isValid()).isTrue();
+        assertThat(validation.getCorrectChars()).isEqualTo(6);
+        assertThat(validation.getIncorrectChars()).isEqualTo(1);
+    }
+
+    @Test
+    void spaceOnAnEmptyWordDoesNotAdvance() {
+        KeystrokeValidation validation = validator.validate(typed("  the  cat"), "the cat", 15, 6, 0);
+
+        assertThat(validation.isValid()).isTrue();
+        assertThat(validation.getCorrectChars()).isEqualTo(6);
+        assertThat(validation.getIncorrectChars()).isZero();
+    }
+
+    @Test
+    void charactersPastTheWordAndSkippedWordsAreIncorrect() {
+        // "thee" overruns the word; "ca" is submitted short, so "t" is compared against "dog"
+        KeystrokeValidation validation = validator.validate(typed("thee ca t"), "the cat dog", 15, 5, 2);
+
+        assertThat(validation.isValid()).isTrue();
+        assertThat(validation.getCorrectChars()).isEqualTo(5);
+        assertThat(validation.getIncorrectChars()).isEqualTo(2);
+    }
+
+    @Test
+    void backspaceAtTheWordStartIsIgnored() {
+        KeystrokeValidation validation = validator.validate(typed(BACKSPACE + "the"), "the", 15, 3, 0);
+
+        assertThat(validation.getCorrectChars()).isEqualTo(3);
+        assertThat(validation.getIncorrectChars()).isZero();
+    }
+
+    @Test
+    void multiCharacterDeleteMovesBackOncePerCharacter() {
+        byte[] log = new KeystrokeLog.Writer()
+                .event(120, 't').event(180, 'h').event(120, 'x').event(180, 'y')
+                .event(150, KeystrokeLog.BACKSPACE).event(0, KeystrokeLog.BACKSPACE)
+                .event(120, 'e').event(180, KeystrokeLog.SPACE).event(120, 'c').event(180, 'a').event(120, 't')
+                .toByteArray();
+
+        KeystrokeValidation validation = validator.validate(log, "the cat", 15, 6, 2);
+
+        assertThat(validation.isValid()).isTrue();
+        assertThat(validation.getCorrectChars()).isEqualTo(6);
+        assertThat(validation.getIncorrectChars()).isEqualTo(2);
+    }
+
+    @Test
+    void wordDeletesAreNotFastIntervals() {
+        // Type a word, then delete it with one Ctrl+Backspace, 25 times over
+        KeystrokeLog.Writer writer = new KeystrokeLog.Writer();
+        for (int word = 0; word < 25; word++) {
+            for (int i = 0; i < 5; i++)
+                writer.event(i % 2 == 0 ? 120 : 180, 'a');
+            writer.event(150, KeystrokeLog.BACKSPACE);
+            for (int i = 1; i < 5; i++)
+                writer.event(0, KeystrokeLog.BACKSPACE);
+        }
+
+        KeystrokeValidation validation = validator.validate(writer.toByteArray(), null, 30, 125, 0);
+
+        assertThat(validation.isValid()).isTrue();
+    }
+
+    @Test
+    void withoutTargetTheClientsSplitIsCappedByWhatWasTyped() {
+        KeystrokeValidation validation = validator.validate(typed("abcde"), null, 15, 9, 0);
+
+        assertThat(validation.getFlags()).containsExactly(Flag.COUNT_MISMATCH);
+        assertThat(validation.getCorrectChars()).isEqualTo(5);
+        assertThat(validation.getIncorrectChars()).isZero();
+    }
+
+    @Test
+    void emptyLogIsMalformed() {
+        assertThat(validator.validate(new byte[0], null, 15, 0, 0).getFlags()).containsExactly(Flag.MALFORMED);
+    }
+
+    @Test
+    void unknownVersionIsMalformed() {
+        byte[] log = typed("abc");
+        log[0] = KeystrokeLog.VERSION + 1;
+
+        assertThat(validator.validate(log, null, 15, 3, 0).getFlags()).containsExactly(Flag.MALFORMED);
+    }
+
+    @Test
+    void oversizedLogIsMalformed() {
+        ReflectionTestUtils.setField(validator, "maxLogBytes", 8);
+
+        assertThat(validator.validate(typed("abcdef"), null, 15, 6, 0).getFlags()).containsExactly(Flag.MALFORMED);
+    }
+
+    @Test
+    void truncatedVarintIsMalformed() {
+        byte[] log = { KeystrokeLog.VERSION, 100, 'a', (byte) 0xAC };
+
+        assertThat(validator.validate(log, null, 15, 1, 0).getFlags()).containsExactly(Flag.MALFORMED);
+    }
+
+    @Test
+    void eventMissingItsCodePointIsMalformed() {
+        byte[] log = { KeystrokeLog.VERSION, 100, 'a', 100 };
+
+        assertThat(validator.validate(log, null, 15, 1, 0).getFlags()).containsExactly(Flag.MALFORMED);
+    }
+
+    @Test
+    void varintLongerThanFiveBytesIsMalformed() {
+        byte[] log = { KeystrokeLog.VERSION, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01,
+                'a' };
+
+        assertThat(validator.validate(log, null, 15, 1, 0).getFlags()).containsExactly(Flag.MALFORMED);
+    }
+
+    @Test
+    void varintOverflowingIntIsMalformed() {
+        byte[] log = { KeystrokeLog.VERSION, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 'a' };
+
+        assertThat(validator.validate(log, null, 15, 1, 0).getFlags()).containsExactly(Flag.MALFORMED);
+    }
+
+    @Test
+    void logLongerThanTheTestIsFlagged() {
+        KeystrokeLog.Writer writer = new KeystrokeLog.Writer();
+        for (int i = 0; i < 10; i++)
+            writer.event(i % 2 == 0 ? 1500 : 2000, 'a');
+
+        KeystrokeValidation validation = validator.validate(writer.toByteArray(), null, 15, 10, 0);
+
+        assertThat(validation.getFlags()).containsExactly(Flag.LONGER_THAN_DURATION);
+    }
+
+    @Test
+    void slackCoversTheLastKeyAfterTheTimer() {
+        KeystrokeLog.Writer writer = new KeystrokeLog.Writer();
+        for (int i = 0; i < 10; i++)
+            writer.event(i % 2 == 0 ? 1500 : 1800, 'a');
+
+        assertThat(validator.validate(writer.toByteArray(), null, 15, 10, 0).isValid()).isTrue();
+    }
+
+    @Test
+    void tooManyFastIntervalsAreFlagged() {
+        KeystrokeLog.Writer writer = new KeystrokeLog.Writer();
+        for (int i = 0; i < 40; i++)
+            writer.event(i % 2 == 0 ? 5 : 300, 'a');
+
+        KeystrokeValidation validation = validator.validate(writer.toByteArray(), null, 15, 40, 0);
+
+        assertThat(validation.getFlags()).containsExactly(Flag.IMPOSSIBLE_INTERVALS);
+    }
+
+    @Test
+    void evenlySpacedKeysAreFlagged() {
+        KeystrokeLog.Writer writer = new KeystrokeLog.Writer();
+        for (int i = 0; i < 60; i++)
+            writer.event(200, 'a');
+
+        KeystrokeValidation validation = validator.validate(writer.toByteArray(), null, 15, 60, 0);
+
+        assertThat(validation.getFlags()).containsExactly(Flag.ROBOTIC_TIMING);
+    }
+
+    @Test
+    void rawSpeedAboveTheLimitIsFlagged() {
+        KeystrokeLog.Writer writer = new KeystrokeLog.Writer();
+        for (int i = 0; i < 500; i++)
+            writer.event(i % 2 == 0 ? 20 : 40, 'a');
+
+        KeystrokeValidation validation = validator.validate(writer.toByteArray(), null, 15, 500, 0);
+
+        assertThat(validation.getRawWpm()).isEqualTo(400);
+        assertThat(validation.getFlags()).containsExactly(Flag.IMPOSSIBLE_SPEED);
+    }
+
+    @Test
+    void claimedCountsFarFromTheLogAreFlagged() {
+        KeystrokeValidation validation = validator.validate(typed("the cat"), "the cat", 15, 10, 0);
+
+        assertThat(validation.getFlags()).containsExactly(Flag.COUNT_MISMATCH);
+    }
+
+    @Test
+    void smallCountDifferencesAreTolerated() {
+        assertThat(validator.validate(typed("the cat"), "the cat", 15, 8, 0).isValid()).isTrue();
+    }
+
+    // One event per character, at a human-looking 120 or 180 ms apart
+    private static byte[] typed(String keys) {
+        KeystrokeLog.Writer writer = new KeystrokeLog.Writer();
+        for (int i = 0; i < keys.length(); i++)
+            writer.event(i % 2 == 0 ? 120 : 180, keys.charAt(i));
+        return writer.toByteArray();
+    }
+}
@@ -0,0 +1,51 @@
+package com.typeroo.api.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.typeroo.api.payload.response.UserSearchResult;
+
+class UsernameSearchIndexTest {
+    private static final LocalDateTime RENAMED_AT = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private UsernameSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UsernameSearchIndex();
+        ReflectionTestUtils.setField(index, "maxResults", 100);
+    }
+
+    @Test
+    void olderDocumentDoesNotRevertARename() {
+        index.put("1", "newname", null, RENAMED_AT);
+        // A rebuild that read the user before the rename
+        index.put("1", "oldname", null, null);
+        index.put("1", "oldname", null, RENAMED_AT.minusSeconds(1));
+
+        assertThat(index.search("newname", 0, 10)).extracting(UserSearchResult::getUsername)
+                .containsExactly("newname");
+        assertThat(index.search("oldname", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void newerDocumentReplacesTheIndexedOne() {
+        index.put("1", "oldname", null, null);
+        index.put("1", "newname", null, RENAMED_AT);
+
+        assertThat(index.search("oldname", 0, 10)).isEmpty();
+        assertThat(index.search("newname", 0, 10)).hasSize(1);
+    }
+
+    @Test
+    void pageBeyondIntRangeIsEmpty() {
+        index.put("1", "typist", null, null);
+
+        assertThat(index.search("typ", Integer.MAX_VALUE, 50)).isEmpty();
+    }
+}
@@ -0,0 +1,78 @@
+package com.typeroo.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.typeroo.api.models.ERole;
+import com.typeroo.api.models.User;
+import com.typeroo.api.repository.UserRepository;
+import com.typeroo.api.security.jwt.JwtUtils;
+import com.typeroo.api.security.service.UserDetailsImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Builds backend components outside Spring, wiring @Value and @Autowired
+ * fields by hand.
+ */
+final class Fixtures {
+    // 256-bit base64 secret, only used for benchmarking
+    static final String JWT_SECRET = "dHlwZXJvby1iZW5jaG1hcmstc2VjcmV0LWtleS0wMTIzNDU2Nzg5YWJjZGVm";
+
+    private Fixtures() {
+    }
+
+    static User user() {
+        User user = new User("benchuser", "bench@typeroo.dev",
+                "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3Uxp3dDvVq3wzF5y0pp5c2e");
+        user.setId("65f0c0ffee0000000000beef");
+        user.setRoles(Set.of(ERole.ROLE_USER));
+        user.setBio("Typing enthusiast");
+        user.setTotalTests(1234);
+        user.setLastUsernameUpdate(LocalDateTime.now().minusMonths(2));
+        return user;
+    }
+
+    static JwtUtils jwtUtils(int cacheSize) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheSize", cacheSize);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheTtlMs", 300000L);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+        return jwtUtils;
+    }
+
+    static String token(JwtUtils jwtUtils) {
+        UserDetailsImpl principal = UserDetailsImpl.build(user());
+        return jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    /**
+     * UserRepository whose lookups return the fixture user without any I/O.
+     */
+    static UserRepository stubUserRepository() {
+        User user = user();
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[] { UserRepository.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findByUsername":
+                        case "findById":
+                        case "findByEmail":
+                            return Optional.of(user);
+                        case "existsByUsername":
+                        case "existsByEmail":
+                            return Boolean.TRUE;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,68 @@
+package com.typeroo.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.typeroo.api.security.jwt.JwtUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Token generation and verification. {@code legacyValidateThenParse} mirrors
+ * the original filter path (key rebuilt per call, token parsed twice) as the
+ * baseline for the single-pass and cached variants.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+    private JwtUtils uncached;
+    private JwtUtils cached;
+    private String token;
+
+    @Setup
+    public void setup() {
+        uncached = Fixtures.jwtUtils(0);
+        cached = Fixtures.jwtUtils(10000);
+        token = Fixtures.token(cached);
+    }
+
+    @Benchmark
+    public String generate() {
+        return Fixtures.token(uncached);
+    }
+
+    @Benchmark
+    public String legacyValidateThenParse() {
+        Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(Fixtures.JWT_SECRET))).build()
+                .parse(token);
+        return Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(Fixtures.JWT_SECRET)))
+                .build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public Claims singlePass() {
+        return uncached.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims singlePassCached() {
+        return cached.parseClaims(token);
+    }
+}
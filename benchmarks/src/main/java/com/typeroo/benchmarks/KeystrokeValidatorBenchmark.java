@@ -0,0 +1,99 @@
+package com.typeroo.benchmarks;
+
+import java.util.Base64;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.typeroo.api.services.KeystrokeLog;
+import com.typeroo.api.services.KeystrokeValidation;
+import com.typeroo.api.services.KeystrokeValidator;
+
+/**
+ * Inline validation cost of a one-minute, 120 wpm keystroke log (about 600
+ * keystrokes with a few corrections), replayed against the target text and
+ * timing-only, plus the base64 decode the save endpoint does first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeystrokeValidatorBenchmark {
+    private static final String[] WORDS = { "the", "be", "of", "and", "a", "to", "in", "he", "have", "it", "that",
+            "for", "they", "with", "as", "not", "on", "she", "at", "by", "this", "we", "you", "do", "but", "from" };
+
+    private KeystrokeValidator validator;
+    private String target;
+    private byte[] log;
+    private String encodedLog;
+    private int correct;
+    private int incorrect;
+
+    @Setup
+    public void setup() {
+        validator = new KeystrokeValidator();
+        ReflectionTestUtils.setField(validator, "maxLogBytes", 65536);
+        ReflectionTestUtils.setField(validator, "minIntervalMs", 12);
+        ReflectionTestUtils.setField(validator, "maxFastIntervalRatio", 0.25);
+        ReflectionTestUtils.setField(validator, "minIntervalVariation", 0.15);
+        ReflectionTestUtils.setField(validator, "maxRawWpm", 350.0);
+        ReflectionTestUtils.setField(validator, "durationSlackMs", 1500L);
+
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 150; i++) {
+            if (i > 0)
+                text.append(' ');
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        target = text.toString();
+
+        // 120 wpm = 10 keystrokes per second, jittered around 100 ms
+        KeystrokeLog.Writer writer = new KeystrokeLog.Writer();
+        long elapsed = 0;
+        for (int i = 0; i < target.length() && elapsed < 59000; i++) {
+            int delta = 60 + random.nextInt(80);
+            char c = target.charAt(i);
+            if (c != ' ' && random.nextInt(40) == 0) {
+                writer.event(delta, 'x').event(90 + random.nextInt(60), KeystrokeLog.BACKSPACE);
+                incorrect++;
+                elapsed += delta + 120;
+                delta = 60 + random.nextInt(80);
+            }
+            writer.event(delta, c);
+            if (c != ' ')
+                correct++;
+            elapsed += delta;
+        }
+        log = writer.toByteArray();
+        encodedLog = Base64.getEncoder().encodeToString(log);
+    }
+
+    @Benchmark
+    public KeystrokeValidation replayAgainstTarget() {
+        return validator.validate(log, target, 60, correct, incorrect);
+    }
+
+    @Benchmark
+    public KeystrokeValidation timingOnly() {
+        return validator.validate(log, null, 60, correct, incorrect);
+    }
+
+    @Benchmark
+    public KeystrokeValidation decodeAndReplay() {
+        return validator.validate(Base64.getDecoder().decode(encodedLog), target, 60, correct, incorrect);
+    }
+}
@@ -0,0 +1,92 @@
+package com.typeroo.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.typeroo.api.models.User;
+import com.typeroo.api.repository.UserRepositoryImpl;
+
+/**
+ * Concurrent test saves for a single user against a local mongod: the old
+ * read-modify-save of the whole User versus the atomic $inc. Point it at a
+ * scratch database with -Dmongo.uri (typeroo_bench if the URI names none).
+ * Only the benchmark's own user document is written and removed afterwards;
+ * the application database is refused unless -DforceBench=true.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class TotalsIncrementBenchmark {
+    private static final String APPLICATION_DATABASE = "typeroo";
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private UserRepositoryImpl userRepository;
+    private String userId;
+
+    @Setup
+    public void setup() {
+        String uri = System.getProperty("mongo.uri", "mongodb://localhost:27017/typeroo_bench");
+        ConnectionString connection = new ConnectionString(uri);
+        String database = connection.getDatabase() != null ? connection.getDatabase() : "typeroo_bench";
+        if (APPLICATION_DATABASE.equals(database) && !Boolean.getBoolean("forceBench")) {
+            throw new IllegalStateException("Refusing to benchmark against the application database '"
+                    + APPLICATION_DATABASE + "'; name a scratch database in -Dmongo.uri or pass -DforceBench=true");
+        }
+        client = MongoClients.create(connection);
+        mongoTemplate = new MongoTemplate(client, database);
+
+        // Fresh id, username and email, so the insert never touches or collides with another user
+        User user = Fixtures.user();
+        String suffix = new ObjectId().toHexString();
+        user.setId(null);
+        user.setUsername("bench-" + suffix);
+        user.setEmail("bench-" + suffix + "@typeroo.dev");
+        userId = mongoTemplate.insert(user).getId();
+
+        userRepository = new UserRepositoryImpl();
+        ReflectionTestUtils.setField(userRepository, "mongoTemplate", mongoTemplate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(userId)), User.class);
+        client.close();
+    }
+
+    @Benchmark
+    public User legacyReadModifySave() {
+        User user = mongoTemplate.findById(userId, User.class);
+        user.setTotalTests(user.getTotalTests() + 1);
+        return mongoTemplate.save(user);
+    }
+
+    @Benchmark
+    public void atomicIncrement() {
+        userRepository.incrementTotals(userId, 1, 250, 30);
+    }
+}
@@ -2,6 +2,7 @@ import React, { useContext, useState, useEffect } from "react";
 import { Link, useNavigate } from "react-router-dom";
 import { AuthContext } from "../context/AuthContext";
 import api from "../services/api";
+import { avatarSrc } from "../services/avatar";
 
 const Navbar = () => {
     const { currentUser, logout } = useContext(AuthContext);
@@ -72,7 +73,7 @@ const Navbar = () => {
                                 }}
                             >
                                 <div style={{ width: 30, height: 30, borderRadius: '50%', background: '#333', display: 'flex', alignItems: 'center', justifyContent: 'center', overflow: 'hidden' }}>
-                                    {user.avatarUrl ? <img src={user.avatarUrl} alt={user.username} style={{ width: '100%', height: '100%', objectFit: 'cover' }} /> : <span style={{ fontSize: '12px' }}>{user.username.charAt(0).toUpperCase()}</span>}
+                                    {user.avatarUrl ? <img src={avatarSrc(user.avatarUrl, 64)} alt={user.username} style={{ width: '100%', height: '100%', objectFit: 'cover' }} /> : <span style={{ fontSize: '12px' }}>{user.username.charAt(0).toUpperCase()}</span>}
                                 </div>
                                 <span>{user.username}</span>
                             </div>
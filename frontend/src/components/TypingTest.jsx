@@ -5,6 +5,23 @@ const WORDS = [
     "the", "be", "of", "and", "a", "to", "in", "he", "have", "it", "that", "for", "they", "i", "with", "as", "not", "on", "she", "at", "by", "this", "we", "you", "do", "but", "from", "or", "which", "one", "would", "all", "will", "there", "say", "who", "make", "when", "can", "more", "if", "no", "man", "out", "other", "so", "what", "time", "up", "go", "about", "than", "into", "could", "state", "only", "new", "year", "some", "take", "come", "these", "know", "see", "use", "get", "like", "then", "first", "any", "work", "now", "may", "such", "give", "over", "think", "most", "even", "find", "day", "also", "after", "way", "many", "must", "look", "before", "great", "back", "through", "long", "where", "much", "should", "well", "people", "down", "own", "just", "because", "good", "each", "those", "feel", "seem", "how", "high", "too", "place", "little", "world", "very", "still", "nation", "hand", "old", "life", "tell", "write", "become", "here", "show", "house", "both", "between", "need", "mean", "call", "develop", "under", "last", "right", "move", "thing", "general", "school", "never", "same", "another", "begin", "while", "number", "part", "turn", "real", "leave", "might", "want", "point", "form", "off", "child", "few", "small", "since", "against", "ask", "late", "home", "interest", "large", "person", "end", "open", "public", "follow", "during", "present", "without", "again", "hold", "govern", "around", "possible", "head", "consider", "word", "program", "problem", "however", "lead", "system", "set", "order", "eye", "plan", "run", "keep", "face", "fact", "group", "play", "stand", "increase", "early", "course", "change", "help", "line"
 ];
 
+// Delta-encoded varint keystroke log (see KeystrokeLog on the server), base64 for the JSON body
+const encodeKeystrokes = (events) => {
+    const bytes = [1];
+    const writeVarint = (value) => {
+        while (value > 0x7f) {
+            bytes.push((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        bytes.push(value);
+    };
+    for (const [delta, code] of events) {
+        writeVarint(delta);
+        writeVarint(code);
+    }
+    return btoa(String.fromCharCode(...bytes));
+};
+
 const TypingTest = () => {
     // Game Config
     const [mode, setMode] = useState("time"); // 'time' or 'custom'
@@ -29,10 +46,14 @@ const TypingTest = () => {
     const [history, setHistory] = useState({});
 
     const [results, setResults] = useState(null);
+    const [percentile, setPercentile] = useState(null);
     const inputRef = useRef(null);
     const [startTime, setStartTime] = useState(null);
 
     // Use refs to track character counts without causing effect re-runs
+    const keystrokesRef = useRef([]);
+    const lastKeyAtRef = useRef(null);
+    const seedRef = useRef(null);
     const correctCharsRef = useRef(0);
     const incorrectCharsRef = useRef(0);
 
@@ -46,13 +67,26 @@ const TypingTest = () => {
         if (mode === 'custom' && selectedCustomText) {
             setWords(selectedCustomText.split(/\s+/));
         } else {
-            let newWords = [];
-            for (let i = 0; i < 150; i++) {
-                newWords.push(WORDS[Math.floor(Math.random() * WORDS.length)]);
-            }
-            setWords(newWords);
+            // Generated server-side from the full word lists; the bundled list is only a fallback.
+            // The seed lets the server regenerate the text to validate the keystroke log.
+            const seed = Math.floor(Math.random() * Number.MAX_SAFE_INTEGER);
+            api.get("/words", { params: { language: "english", count: 150, seed }, responseType: "text" })
+                .then(res => {
+                    seedRef.current = seed;
+                    setWords(res.data.split(" "));
+                })
+                .catch(() => {
+                    seedRef.current = null;
+                    let newWords = [];
+                    for (let i = 0; i < 150; i++) {
+                        newWords.push(WORDS[Math.floor(Math.random() * WORDS.length)]);
+                    }
+                    setWords(newWords);
+                });
         }
 
+        keystrokesRef.current = [];
+        lastKeyAtRef.current = null;
         setWordIndex(0);
         setCurrInput("");
         setHistory({});
@@ -75,6 +109,8 @@ const TypingTest = () => {
     const saveResult = async (data) => {
         try {
             await api.post("/tests/save", data);
+            const res = await api.get("/leaderboard/percentile", { params: { duration: data.duration, wpm: data.wpm } });
+            if (res.data.sampleSize > 0) setPercentile(Math.round(res.data.percentile));
         } catch (err) {
             console.error("Failed to save result", err);
         }
@@ -111,7 +147,13 @@ const TypingTest = () => {
         };
 
         setResults(resultData);
-        saveResult(resultData);
+        const payload = { ...resultData, keystrokeLog: encodeKeystrokes(keystrokesRef.current) };
+        if (mode === 'time' && seedRef.current !== null) {
+            payload.language = "english";
+            payload.seed = seedRef.current;
+            payload.wordCount = 150;
+        }
+        saveResult(payload);
     }, [mode, duration, timeLeft]); // Removed correctChars and incorrectChars from dependencies
 
     useEffect(() => {
@@ -155,8 +197,17 @@ const TypingTest = () => {
         }
     };
 
-    const selectCustomText = (text) => {
-        setSelectedCustomText(text.content);
+    const selectCustomText = async (text) => {
+        // The listing only carries previews; the full content is fetched on demand
+        let content;
+        try {
+            const res = await api.get(`/custom-texts/${text.id}`);
+            content = res.data.content;
+        } catch (err) {
+            console.error(err);
+            return;
+        }
+        setSelectedCustomText(content);
         setMode('custom');
         setShowCustomModal(false);
         // Duration irrelevant for custom text, but we use it for stats if needed.
@@ -183,6 +234,13 @@ const TypingTest = () => {
         return Math.round((correctChars / total) * 100);
     };
 
+    const recordKey = (code) => {
+        const now = performance.now();
+        const delta = lastKeyAtRef.current === null ? 0 : Math.round(now - lastKeyAtRef.current);
+        lastKeyAtRef.current = now;
+        keystrokesRef.current.push([delta, code]);
+    };
+
     const startTest = () => {
         setIsActive(true);
         if (inputRef.current) inputRef.current.focus();
@@ -194,6 +252,7 @@ const TypingTest = () => {
         else setTimeLeft(0);
 
         setResults(null);
+        setPercentile(null);
         generateWords();
         setTimeout(() => inputRef.current?.focus(), 100);
     };
@@ -210,6 +269,7 @@ const TypingTest = () => {
         if (e.key === " ") {
             e.preventDefault();
             if (currInput.trim() === "") return;
+            recordKey(0x20);
 
             const targetWord = words[wordIndex];
             const isCorrect = currInput === targetWord;
@@ -229,11 +289,6 @@ const TypingTest = () => {
             setCurrInput("");
             return;
         }
-
-        // Backspace
-        if (e.key === "Backspace") {
-            return;
-        }
     };
 
     const handleChange = (e) => {
@@ -247,9 +302,17 @@ const TypingTest = () => {
 
         setCurrInput(val);
 
+        // One BACKSPACE per removed character, so word deletes and selections replay like single ones
+        const removed = oldVal.length - val.length;
+        if (removed > 0) {
+            recordKey(0x08);
+            for (let i = 1; i < removed; i++) keystrokesRef.current.push([0, 0x08]);
+        }
+
         if (val.length > oldVal.length) {
             const charIndex = val.length - 1;
             const targetWord = words[wordIndex];
+            recordKey(val.charCodeAt(charIndex));
 
             if (charIndex < targetWord.length) {
                 if (val[charIndex] === targetWord[charIndex]) {
@@ -363,7 +426,7 @@ const TypingTest = () => {
                                             whiteSpace: 'nowrap', overflow: 'hidden', textOverflow: 'ellipsis'
                                         }}
                                     >
-                                        {text.content.substring(0, 50)}...
+                                        {text.preview.substring(0, 50)}...
                                     </div>
                                 ))}
                                 {customTexts.length === 0 && <div style={{ color: 'var(--text-muted)' }}>No saved texts.</div>}
@@ -396,6 +459,11 @@ const TypingTest = () => {
                             <div style={{ fontSize: '1.2rem', color: 'var(--text-main)', marginTop: '0.5rem' }}>{results.correctChars}/{results.incorrectChars}</div>
                         </div>
                     </div>
+                    {percentile !== null && (
+                        <div style={{ color: 'var(--text-secondary)', marginBottom: '2rem' }}>
+                            Faster than {percentile}% of {results.duration}s tests
+                        </div>
+                    )}
                     <button onClick={resetTest} className="btn btn-primary" style={{ fontSize: '1.2rem', padding: '0.8rem 2rem' }}>Try Again</button>
                 </div>
             ) : (
@@ -3,6 +3,7 @@ import { useParams } from "react-router-dom";
 import Navbar from "../components/Navbar";
 import { AuthContext } from "../context/AuthContext";
 import api from "../services/api";
+import { avatarSrc } from "../services/avatar";
 
 const Profile = () => {
     const { currentUser } = useContext(AuthContext);
@@ -127,7 +128,7 @@ const Profile = () => {
                         <div style={{ background: 'var(--bg-dark-secondary)', padding: '2rem', borderRadius: '8px', height: 'fit-content' }}>
                             <div style={{ textAlign: 'center', marginBottom: '1rem' }}>
                                 <div style={{ width: '120px', height: '120px', borderRadius: '50%', background: 'var(--bg-dark)', margin: '0 auto 1.5rem', display: 'flex', alignItems: 'center', justifyContent: 'center', fontSize: '3rem', color: 'var(--text-muted)', overflow: 'hidden', border: '3px solid var(--bg-dark-tertiary)' }}>
-                                    {profile?.avatarUrl ? <img src={profile.avatarUrl} alt="avatar" style={{ width: '100%', height: '100%', objectFit: 'cover' }} /> : profile?.username?.charAt(0).toUpperCase()}
+                                    {profile?.avatarUrl ? <img src={avatarSrc(profile.avatarUrl, 256)} alt="avatar" style={{ width: '100%', height: '100%', objectFit: 'cover' }} /> : profile?.username?.charAt(0).toUpperCase()}
                                 </div>
                                 <h2 style={{ fontSize: '1.8rem', color: 'var(--primary-cyan)', marginBottom: '0.5rem' }}>{profile?.username}</h2>
                                 <p style={{ color: 'var(--text-secondary)', fontSize: '0.9rem' }}>Joined: {new Date(profile?.joinedAt).toLocaleDateString()}</p>
@@ -0,0 +1,8 @@
+// Avatars served by the backend accept a size hint and return a pre-rendered
+// square thumbnail; external avatar URLs are left untouched.
+export const avatarSrc = (url, size) => {
+  if (!url || !url.includes("/avatars/")) {
+    return url;
+  }
+  return `${url}?size=${size}`;
+};
@@ -0,0 +1,112 @@
+package com.typeroo.loadtest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.bson.Document;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+
+/**
+ * Writes a synthetic dataset straight into Mongo in the shape the backend's
+ * mapping expects. Every seeded user is named {@code lt_user_<n>} so a rerun
+ * first removes the previous dataset.
+ */
+class DatasetSeeder {
+    static final String USERNAME_PREFIX = "lt_user_";
+    static final String PASSWORD = "loadtest-password";
+
+    // The application's real database; seeding it needs -DforceSeed=true
+    static final String APPLICATION_DATABASE = "typeroo";
+
+    private static final int[] DURATIONS = { 10, 30, 60 };
+    private static final int BATCH = 5000;
+
+    private final LoadTestConfig config;
+
+    DatasetSeeder(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    void seed() {
+        if (APPLICATION_DATABASE.equals(config.database) && !config.forceSeed) {
+            throw new IllegalStateException("Refusing to seed the application database '" + APPLICATION_DATABASE
+                    + "'; use a scratch -Ddatabase or pass -DforceSeed=true");
+        }
+        try (MongoClient client = MongoClients.create(config.mongoUri)) {
+            MongoDatabase db = client.getDatabase(config.database);
+            MongoCollection<Document> users = db.getCollection("users");
+            MongoCollection<Document> results = db.getCollection("test_results");
+
+            List<String> oldIds = new ArrayList<>();
+            users.find(Filters.regex("username", "^" + USERNAME_PREFIX)).projection(new Document("_id", 1))
+                    .forEach(doc -> oldIds.add(doc.getObjectId("_id").toHexString()));
+            results.deleteMany(Filters.in("userId", oldIds));
+            users.deleteMany(Filters.regex("username", "^" + USERNAME_PREFIX));
+
+            // One hash shared by all users; BCrypt per user would dominate seeding time
+            String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+            Random random = new Random(config.randomSeed);
+            long now = System.currentTimeMillis();
+            InsertManyOptions unordered = new InsertManyOptions().ordered(false);
+
+            List<Document> userBatch = new ArrayList<>(BATCH);
+            List<Document> resultBatch = new ArrayList<>(BATCH);
+            long started = System.currentTimeMillis();
+            for (int i = 0; i < config.users; i++) {
+                Document user = new Document("username", USERNAME_PREFIX + i)
+                        .append("email", USERNAME_PREFIX + i + "@loadtest.local")
+                        .append("password", hash)
+                        .append("roles", List.of("ROLE_USER"))
+                        .append("totalTests", (long) config.resultsPerUser)
+                        .append("joinedAt", new Date(now))
+                        .append("themePreference", "dark");
+                userBatch.add(user);
+                if (userBatch.size() == BATCH)
+                    flush(users, userBatch, unordered);
+            }
+            flush(users, userBatch, unordered);
+
+            for (Document user : users.find(Filters.regex("username", "^" + USERNAME_PREFIX))) {
+                String userId = user.getObjectId("_id").toHexString();
+                String username = user.getString("username");
+                double skill = 40 + random.nextGaussian() * 15;
+                for (int r = 0; r < config.resultsPerUser; r++) {
+                    int duration = DURATIONS[random.nextInt(DURATIONS.length)];
+                    double wpm = Math.max(5, skill + random.nextGaussian() * 8);
+                    int chars = (int) (wpm * 5 * duration / 60);
+                    resultBatch.add(new Document("userId", userId)
+                            .append("username", username)
+                            .append("wpm", wpm)
+                            .append("rawWpm", wpm * 1.05)
+                            .append("accuracy", 85 + random.nextDouble() * 15)
+                            .append("duration", duration)
+                            .append("correctChars", chars)
+                            .append("incorrectChars", random.nextInt(10))
+                            .append("timestamp", new Date(now - (long) r * 3_600_000L)));
+                    if (resultBatch.size() == BATCH)
+                        flush(results, resultBatch, unordered);
+                }
+            }
+            flush(results, resultBatch, unordered);
+
+            System.out.printf("Seeded %d users and %d results in %d ms%n", config.users,
+                    (long) config.users * config.resultsPerUser, System.currentTimeMillis() - started);
+        }
+    }
+
+    private static void flush(MongoCollection<Document> collection, List<Document> batch, InsertManyOptions options) {
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch, options);
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.typeroo.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Recorder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Open-model driver: requests are issued on a fixed schedule regardless of
+ * how fast earlier ones complete. Latency is measured from each request's
+ * intended start time, which corrects for coordinated omission; the plain
+ * service time from actual send is recorded alongside for comparison.
+ */
+class LoadGenerator {
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final LoadTestConfig config;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Random random;
+
+    private final Operation[] schedule;
+    private final List<Session> sessions = new ArrayList<>();
+
+    final Map<Operation, Recorder> corrected = new EnumMap<>(Operation.class);
+    final Map<Operation, Recorder> service = new EnumMap<>(Operation.class);
+    final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+    private volatile boolean recording;
+
+    LoadGenerator(LoadTestConfig config) {
+        this.config = config;
+        this.random = new Random(config.randomSeed);
+
+        List<Operation> slots = new ArrayList<>();
+        config.mix.forEach((op, weight) -> {
+            for (int i = 0; i < weight; i++)
+                slots.add(op);
+        });
+        schedule = slots.toArray(new Operation[0]);
+
+        for (Operation op : Operation.values()) {
+            corrected.put(op, new Recorder(MAX_LATENCY_NANOS, 3));
+            service.put(op, new Recorder(MAX_LATENCY_NANOS, 3));
+            errors.put(op, new AtomicLong());
+        }
+    }
+
+    void signInSessions() throws Exception {
+        int count = Math.min(config.activeUsers, config.users);
+        for (int i = 0; i < count; i++) {
+            String username = DatasetSeeder.USERNAME_PREFIX + i;
+            HttpResponse<String> response = http.send(signInRequest(username), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200)
+                throw new IllegalStateException("Sign-in failed for " + username + ": " + response.statusCode());
+            JsonNode body = mapper.readTree(response.body());
+            sessions.add(new Session(username, body.get("token").asText()));
+        }
+        System.out.printf("Signed in %d sessions%n", sessions.size());
+    }
+
+    void run() {
+        runPhase(config.warmupSeconds, false);
+        for (Operation op : Operation.values()) {
+            corrected.get(op).reset();
+            service.get(op).reset();
+            errors.get(op).set(0);
+        }
+        runPhase(config.durationSeconds, true);
+    }
+
+    private void runPhase(int seconds, boolean measured) {
+        recording = measured;
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / config.ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+
+        for (long intended = start; intended < end; intended += interval) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+            inFlight.add(issue(schedule[random.nextInt(schedule.length)], intended));
+            if (inFlight.size() > 10_000)
+                inFlight.removeIf(CompletableFuture::isDone);
+        }
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+    }
+
+    private CompletableFuture<?> issue(Operation op, long intendedStart) {
+        Session session = sessions.get(random.nextInt(sessions.size()));
+        Session other = sessions.get(random.nextInt(sessions.size()));
+        HttpRequest request = request(op, session, other);
+        long sent = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    long done = System.nanoTime();
+                    if (!recording)
+                        return null;
+                    corrected.get(op).recordValue(Math.min(done - intendedStart, MAX_LATENCY_NANOS));
+                    service.get(op).recordValue(Math.min(done - sent, MAX_LATENCY_NANOS));
+                    if (failure != null || response.statusCode() >= 400)
+                        errors.get(op).incrementAndGet();
+                    return null;
+                });
+    }
+
+    private HttpRequest request(Operation op, Session session, Session other) {
+        switch (op) {
+            case SIGNIN:
+                return signInRequest(session.username);
+            case SAVE: {
+                int duration = new int[] { 10, 30, 60 }[random.nextInt(3)];
+                double wpm = 30 + random.nextDouble() * 70;
+                String body = String.format(java.util.Locale.ROOT,
+                        "{\"wpm\":%.2f,\"rawWpm\":%.2f,\"accuracy\":%.2f,\"duration\":%d,"
+                                + "\"correctChars\":%d,\"incorrectChars\":%d}",
+                        wpm, wpm * 1.05, 90 + random.nextDouble() * 10, duration, (int) (wpm * duration / 12),
+                        random.nextInt(10));
+                return authed(session, "/tests/save").POST(HttpRequest.BodyPublishers.ofString(body)).build();
+            }
+            case HISTORY:
+                return authed(session, "/tests/user-history?username=" + other.username).GET().build();
+            case STATS:
+                return authed(session, "/tests/stats?username=" + other.username).GET().build();
+            case SEARCH:
+                return authed(session, "/users/search?query=" + other.username.substring(0, 6 + random.nextInt(3)))
+                        .GET().build();
+            default:
+                return authed(session, "/users/" + other.username).GET().build();
+        }
+    }
+
+    private HttpRequest signInRequest(String username) {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + DatasetSeeder.PASSWORD + "\"}";
+        return HttpRequest.newBuilder(URI.create(config.baseUrl + "/auth/signin"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest.Builder authed(Session session, String path) {
+        return HttpRequest.newBuilder(URI.create(config.baseUrl + path))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + session.token)
+                .timeout(Duration.ofSeconds(30));
+    }
+
+    private static class Session {
+        final String username;
+        final String token;
+
+        Session(String username, String token) {
+            this.username = username;
+            this.token = token;
+        }
+    }
+}
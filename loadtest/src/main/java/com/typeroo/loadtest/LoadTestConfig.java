@@ -0,0 +1,47 @@
+package com.typeroo.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Run settings, read from system properties so runs are easy to script and
+ * compare. Mix weights are relative, e.g. -Dmix.SAVE=30.
+ */
+class LoadTestConfig {
+    final String baseUrl = System.getProperty("baseUrl", "http://localhost:8080/api");
+    final String mongoUri = System.getProperty("mongoUri", "mongodb://localhost:27017");
+    // A scratch database; the backend under test must be pointed at the same one
+    final String database = System.getProperty("database", "typeroo_loadtest");
+
+    final boolean seed = Boolean.parseBoolean(System.getProperty("seed", "true"));
+    // Required to seed the application's own database, which the seeder writes to and deletes from
+    final boolean forceSeed = Boolean.getBoolean("forceSeed");
+
+    final int users = Integer.getInteger("users", 1000);
+    final int resultsPerUser = Integer.getInteger("resultsPerUser", 200);
+
+    // Users signed in up front whose tokens drive the authenticated calls
+    final int activeUsers = Integer.getInteger("activeUsers", 200);
+
+    final double ratePerSecond = Double.parseDouble(System.getProperty("rate", "200"));
+    final int warmupSeconds = Integer.getInteger("warmupSeconds", 10);
+    final int durationSeconds = Integer.getInteger("durationSeconds", 60);
+    final long randomSeed = Long.getLong("randomSeed", 42L);
+    final String reportDir = System.getProperty("reportDir", "reports");
+    final String label = System.getProperty("label", "run");
+
+    final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+    LoadTestConfig() {
+        for (Operation op : Operation.values()) {
+            mix.put(op, Integer.getInteger("mix." + op.name(), op.defaultWeight));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "baseUrl=" + baseUrl + " database=" + database + " users=" + users + " resultsPerUser=" + resultsPerUser
+                + " activeUsers=" + activeUsers + " rate=" + ratePerSecond + "/s warmup=" + warmupSeconds
+                + "s duration=" + durationSeconds + "s mix=" + mix;
+    }
+}
@@ -0,0 +1,32 @@
+package com.typeroo.loadtest;
+
+import java.nio.file.Path;
+
+/**
+ * Seeds the dataset (unless -Dseed=false), signs in a pool of users, then
+ * drives the configured mix at a fixed arrival rate and writes a report.
+ * The backend keeps in-memory indexes built at startup, so start or restart
+ * it after seeding, with spring.data.mongodb.uri pointing at the seeded
+ * database (typeroo_loadtest unless -Ddatabase is given).
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        System.out.println("Load test: " + config);
+
+        if (config.seed) {
+            new DatasetSeeder(config).seed();
+            if (args.length > 0 && "seed-only".equals(args[0]))
+                return;
+        }
+
+        LoadGenerator generator = new LoadGenerator(config);
+        generator.signInSessions();
+        generator.run();
+
+        Path report = new ReportWriter(config).write(generator);
+        System.out.println("Report written to " + report.toAbsolutePath());
+    }
+
+}
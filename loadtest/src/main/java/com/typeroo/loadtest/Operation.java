@@ -0,0 +1,20 @@
+package com.typeroo.loadtest;
+
+/**
+ * Endpoints exercised by the load mix. Default weights approximate a typing
+ * site: mostly saves and profile browsing, a few sign-ins.
+ */
+enum Operation {
+    SIGNIN(5),
+    SAVE(35),
+    HISTORY(20),
+    STATS(15),
+    SEARCH(15),
+    PROFILE(10);
+
+    final int defaultWeight;
+
+    Operation(int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+}
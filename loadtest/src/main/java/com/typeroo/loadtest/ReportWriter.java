@@ -0,0 +1,70 @@
+package com.typeroo.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Writes one directory per run: summary.csv with a row per endpoint, plus
+ * .hgrm percentile distributions (corrected and service time) that can be
+ * plotted side by side with other runs.
+ */
+class ReportWriter {
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final LoadTestConfig config;
+
+    ReportWriter(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    Path write(LoadGenerator generator) throws IOException {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path dir = Paths.get(config.reportDir, stamp + "-" + config.label);
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("config.txt"), config.toString() + System.lineSeparator());
+
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(dir.resolve("summary.csv")))) {
+            csv.println("endpoint,count,errors,throughput_rps,mean_ms,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,"
+                    + "service_p50_ms,service_p99_ms");
+            System.out.printf("%-8s %8s %7s %9s %9s %9s %9s %9s%n", "endpoint", "count", "errors", "p50 ms",
+                    "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+            for (Operation op : Operation.values()) {
+                Histogram latency = generator.corrected.get(op).getIntervalHistogram();
+                Histogram service = generator.service.get(op).getIntervalHistogram();
+                long errors = generator.errors.get(op).get();
+
+                csv.println(String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f",
+                        op, latency.getTotalCount(), errors, latency.getTotalCount() / (double) config.durationSeconds,
+                        latency.getMean() / NANOS_PER_MS, ms(latency, 50), ms(latency, 90), ms(latency, 99),
+                        ms(latency, 99.9), latency.getMaxValue() / NANOS_PER_MS, ms(service, 50), ms(service, 99)));
+                System.out.printf(Locale.ROOT, "%-8s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", op,
+                        latency.getTotalCount(), errors, ms(latency, 50), ms(latency, 90), ms(latency, 99),
+                        ms(latency, 99.9), latency.getMaxValue() / NANOS_PER_MS);
+
+                writeHgrm(dir.resolve(op.name().toLowerCase(Locale.ROOT) + ".hgrm"), latency);
+                writeHgrm(dir.resolve(op.name().toLowerCase(Locale.ROOT) + "-service.hgrm"), service);
+            }
+        }
+        return dir;
+    }
+
+    private static double ms(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MS;
+    }
+
+    private static void writeHgrm(Path path, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(path))) {
+            histogram.outputPercentileDistribution(out, NANOS_PER_MS);
+        }
+    }
+}